@@ -33,6 +33,14 @@ theme attribute (in the form
 containing a value of this type.
          */
         public static int enumDefaultValueString=0x7f010001;
+        /** <p>Must be a boolean value, either "<code>true</code>" or "<code>false</code>".
+<p>This may also be a reference to a resource (in the form
+"<code>@[<i>package</i>:]<i>type</i>:<i>name</i></code>") or
+theme attribute (in the form
+"<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>")
+containing a value of this type.
+         */
+        public static int persistSelection=0x7f010009;
         /** <p>Must be a reference to another resource, in the form "<code>@[+][<i>package</i>:]<i>type</i>:<i>name</i></code>"
 or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>".
          */
@@ -41,6 +49,26 @@ or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>na
 or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>".
          */
         public static int radioButtonNames=0x7f010004;
+        /** <p>Must be a reference to another resource, in the form "<code>@[+][<i>package</i>:]<i>type</i>:<i>name</i></code>"
+or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>".
+         */
+        public static int radioButtonSections=0x7f010005;
+        /** <p>Must be a reference to another resource, in the form "<code>@[+][<i>package</i>:]<i>type</i>:<i>name</i></code>"
+or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>".
+         */
+        public static int sectionHeaderLayout=0x7f010007;
+        /** <p>Must be a reference to another resource, in the form "<code>@[+][<i>package</i>:]<i>type</i>:<i>name</i></code>"
+or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>".
+         */
+        public static int sectionNames=0x7f010006;
+        /** <p>Must be a boolean value, either "<code>true</code>" or "<code>false</code>".
+<p>This may also be a reference to a resource (in the form
+"<code>@[<i>package</i>:]<i>type</i>:<i>name</i></code>") or
+theme attribute (in the form
+"<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>")
+containing a value of this type.
+         */
+        public static int sectionsCollapsed=0x7f010008;
     }
     public static final class dimen {
         /**  Default screen margins, per the Android Design guidelines. 
@@ -57,12 +85,18 @@ or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>na
         public static int ic_launcher=0x7f020001;
     }
     public static final class layout {
-        public static int horizontal_radio_button=0x7f030000;
-        public static int horizontal_radio_button_clickable_when_checked=0x7f030001;
-        public static int vertical_radio_button=0x7f030002;
-        public static int vertical_radio_button_clickable_when_checked=0x7f030003;
-        public static int wrapped_radio_button=0x7f030004;
-        public static int wrapped_radio_button_clickable_when_checked=0x7f030005;
+        public static int horizontal_check_box=0x7f030000;
+        public static int horizontal_radio_button=0x7f030001;
+        public static int horizontal_radio_button_clickable_when_checked=0x7f030002;
+        public static int section_header=0x7f030003;
+        public static int slim_check_box=0x7f030004;
+        public static int slim_radio_button=0x7f030005;
+        public static int vertical_check_box=0x7f030006;
+        public static int vertical_radio_button=0x7f030007;
+        public static int vertical_radio_button_clickable_when_checked=0x7f030008;
+        public static int wrapped_check_box=0x7f030009;
+        public static int wrapped_radio_button=0x7f03000a;
+        public static int wrapped_radio_button_clickable_when_checked=0x7f03000b;
     }
     public static final class string {
         public static int app_name=0x7f050000;
@@ -95,6 +129,13 @@ or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>na
  All customizations that are NOT specific to a particular API-level can go here. 
          */
         public static int AppTheme=0x7f060001;
+        /** 
+        Compact buttons for dense groups, used by layout/slim_radio_button and
+        layout/slim_check_box. No background, and no button drawable: the group
+        gives every button one made from its theme's shared drawable state.
+    
+         */
+        public static int SlimChoiceButton=0x7f060002;
     }
     public static final class styleable {
         /** Attributes that can be used with a EnumRadioGroup.
@@ -106,18 +147,29 @@ or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>na
            <tr><td><code>{@link #EnumRadioGroup_enumClassName org.diffenbach.android.widgets:enumClassName}</code></td><td></td></tr>
            <tr><td><code>{@link #EnumRadioGroup_enumDefaultIsShown org.diffenbach.android.widgets:enumDefaultIsShown}</code></td><td></td></tr>
            <tr><td><code>{@link #EnumRadioGroup_enumDefaultValueString org.diffenbach.android.widgets:enumDefaultValueString}</code></td><td></td></tr>
+           <tr><td><code>{@link #EnumRadioGroup_persistSelection org.diffenbach.android.widgets:persistSelection}</code></td><td></td></tr>
            <tr><td><code>{@link #EnumRadioGroup_radioButtonLayout org.diffenbach.android.widgets:radioButtonLayout}</code></td><td></td></tr>
            <tr><td><code>{@link #EnumRadioGroup_radioButtonNames org.diffenbach.android.widgets:radioButtonNames}</code></td><td></td></tr>
+           <tr><td><code>{@link #EnumRadioGroup_radioButtonSections org.diffenbach.android.widgets:radioButtonSections}</code></td><td></td></tr>
+           <tr><td><code>{@link #EnumRadioGroup_sectionHeaderLayout org.diffenbach.android.widgets:sectionHeaderLayout}</code></td><td></td></tr>
+           <tr><td><code>{@link #EnumRadioGroup_sectionNames org.diffenbach.android.widgets:sectionNames}</code></td><td></td></tr>
+           <tr><td><code>{@link #EnumRadioGroup_sectionsCollapsed org.diffenbach.android.widgets:sectionsCollapsed}</code></td><td></td></tr>
            </table>
            @see #EnumRadioGroup_enumClassName
            @see #EnumRadioGroup_enumDefaultIsShown
            @see #EnumRadioGroup_enumDefaultValueString
+           @see #EnumRadioGroup_persistSelection
            @see #EnumRadioGroup_radioButtonLayout
            @see #EnumRadioGroup_radioButtonNames
+           @see #EnumRadioGroup_radioButtonSections
+           @see #EnumRadioGroup_sectionHeaderLayout
+           @see #EnumRadioGroup_sectionNames
+           @see #EnumRadioGroup_sectionsCollapsed
          */
         public static final int[] EnumRadioGroup = {
             0x7f010000, 0x7f010001, 0x7f010002, 0x7f010003,
-            0x7f010004
+            0x7f010004, 0x7f010005, 0x7f010006, 0x7f010007,
+            0x7f010008, 0x7f010009
         };
         /**
           <p>This symbol is the offset where the {@link org.diffenbach.android.widgets.R.attr#enumClassName}
@@ -161,6 +213,20 @@ containing a value of this type.
           @attr name org.diffenbach.android.widgets:enumDefaultValueString
         */
         public static int EnumRadioGroup_enumDefaultValueString = 1;
+        /**
+          <p>This symbol is the offset where the {@link org.diffenbach.android.widgets.R.attr#persistSelection}
+          attribute's value can be found in the {@link #EnumRadioGroup} array.
+
+
+          <p>Must be a boolean value, either "<code>true</code>" or "<code>false</code>".
+<p>This may also be a reference to a resource (in the form
+"<code>@[<i>package</i>:]<i>type</i>:<i>name</i></code>") or
+theme attribute (in the form
+"<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>")
+containing a value of this type.
+          @attr name org.diffenbach.android.widgets:persistSelection
+        */
+        public static int EnumRadioGroup_persistSelection = 9;
         /**
           <p>This symbol is the offset where the {@link org.diffenbach.android.widgets.R.attr#radioButtonLayout}
           attribute's value can be found in the {@link #EnumRadioGroup} array.
@@ -181,5 +247,49 @@ or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>na
           @attr name org.diffenbach.android.widgets:radioButtonNames
         */
         public static int EnumRadioGroup_radioButtonNames = 4;
+        /**
+          <p>This symbol is the offset where the {@link org.diffenbach.android.widgets.R.attr#radioButtonSections}
+          attribute's value can be found in the {@link #EnumRadioGroup} array.
+
+
+          <p>Must be a reference to another resource, in the form "<code>@[+][<i>package</i>:]<i>type</i>:<i>name</i></code>"
+or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>".
+          @attr name org.diffenbach.android.widgets:radioButtonSections
+        */
+        public static int EnumRadioGroup_radioButtonSections = 5;
+        /**
+          <p>This symbol is the offset where the {@link org.diffenbach.android.widgets.R.attr#sectionHeaderLayout}
+          attribute's value can be found in the {@link #EnumRadioGroup} array.
+
+
+          <p>Must be a reference to another resource, in the form "<code>@[+][<i>package</i>:]<i>type</i>:<i>name</i></code>"
+or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>".
+          @attr name org.diffenbach.android.widgets:sectionHeaderLayout
+        */
+        public static int EnumRadioGroup_sectionHeaderLayout = 7;
+        /**
+          <p>This symbol is the offset where the {@link org.diffenbach.android.widgets.R.attr#sectionNames}
+          attribute's value can be found in the {@link #EnumRadioGroup} array.
+
+
+          <p>Must be a reference to another resource, in the form "<code>@[+][<i>package</i>:]<i>type</i>:<i>name</i></code>"
+or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>".
+          @attr name org.diffenbach.android.widgets:sectionNames
+        */
+        public static int EnumRadioGroup_sectionNames = 6;
+        /**
+          <p>This symbol is the offset where the {@link org.diffenbach.android.widgets.R.attr#sectionsCollapsed}
+          attribute's value can be found in the {@link #EnumRadioGroup} array.
+
+
+          <p>Must be a boolean value, either "<code>true</code>" or "<code>false</code>".
+<p>This may also be a reference to a resource (in the form
+"<code>@[<i>package</i>:]<i>type</i>:<i>name</i></code>") or
+theme attribute (in the form
+"<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>")
+containing a value of this type.
+          @attr name org.diffenbach.android.widgets:sectionsCollapsed
+        */
+        public static int EnumRadioGroup_sectionsCollapsed = 8;
     };
 }
@@ -0,0 +1,167 @@
+package org.diffenbach.android.widgets.model;
+
+import java.util.EnumSet;
+
+import junit.framework.TestCase;
+
+/**
+ * DependencyRules: hiding, cascading through a chain of models, fallbacks, and cycles.
+ * @author TP Diffenbach
+ */
+public class DependencyRulesTest extends TestCase {
+
+	enum Country {
+		US, UK, FR
+	}
+
+	enum Unit {
+		MILE, KILOMETRE, FURLONG
+	}
+
+	enum Size {
+		S, M, L
+	}
+
+	private EnumChoiceModel<Country> country;
+	private EnumChoiceModel<Unit> unit;
+	private EnumChoiceModel<Size> size;
+	private DependencyRules rules;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		country = new EnumChoiceModel<Country>(Country.US);
+		unit = new EnumChoiceModel<Unit>(Unit.MILE);
+		size = new EnumChoiceModel<Size>(Size.M);
+		rules = new DependencyRules()
+				.hide(country, Country.FR, unit, Unit.MILE, Unit.FURLONG)
+				.hide(country, Country.US, unit, Unit.KILOMETRE)
+				.hide(unit, Unit.KILOMETRE, size, Size.L);
+	}
+
+	public void testCompileEvaluatesAtOnce() {
+		rules.compile();
+		assertFalse(unit.isVisible(Unit.KILOMETRE));
+		assertTrue(unit.isVisible(Unit.MILE));
+		assertTrue(unit.isVisible(Unit.FURLONG));
+	}
+
+	public void testAChangeCascades() {
+		rules.compile();
+		country.check(Country.FR);
+		assertFalse(unit.isVisible(Unit.MILE));
+		assertFalse(unit.isVisible(Unit.FURLONG));
+		assertTrue(unit.isVisible(Unit.KILOMETRE));
+		// MILE was hidden, and the default is MILE, so the first visible
+		assertEquals(Unit.KILOMETRE, unit.getCheckedValue());
+		// which in turn hides L
+		assertFalse(size.isVisible(Size.L));
+
+		country.check(Country.UK);
+		for( Unit u : Unit.values()) {
+			assertTrue(u.toString(), unit.isVisible(u));
+		}
+		// still checked, since it's still visible
+		assertEquals(Unit.KILOMETRE, unit.getCheckedValue());
+		assertFalse(size.isVisible(Size.L));
+		unit.check(Unit.MILE);
+		assertTrue(size.isVisible(Size.L));
+	}
+
+	public void testAHiddenCheckedValueFallsBackToTheDefault() {
+		rules.compile();
+		size.check(Size.L);
+		unit.check(Unit.FURLONG);
+		country.check(Country.UK);
+		unit.check(Unit.KILOMETRE);
+		assertEquals(Size.M, size.getCheckedValue());
+	}
+
+	public void testRulesForTheSamePairAndValueCombine() {
+		rules.hide(country, Country.FR, unit, EnumSet.of(Unit.KILOMETRE)).compile();
+		country.check(Country.FR);
+		for( Unit u : Unit.values()) {
+			assertFalse(u.toString(), unit.isVisible(u));
+		}
+		// nothing to fall back to; left as it was
+		assertEquals(Unit.MILE, unit.getCheckedValue());
+	}
+
+	public void testVisibilityChangesAfterCompileArentUndone() {
+		rules.compile();
+		country.check(Country.UK);
+		size.setVisible(Size.S, false);
+		unit.check(Unit.KILOMETRE);
+		assertFalse(size.isVisible(Size.S));
+		assertFalse(size.isVisible(Size.L));
+		unit.check(Unit.MILE);
+		assertFalse(size.isVisible(Size.S));
+		assertTrue(size.isVisible(Size.L));
+
+		// and a filter under a rule holds when the rule lifts
+		unit.check(Unit.KILOMETRE);
+		size.filter(new EnumChoiceModel.DisplayPredicate<Size>() {
+			@Override
+			public boolean apply(Size s) {
+				return s == Size.M;
+			}
+		});
+		unit.check(Unit.MILE);
+		assertFalse(size.isVisible(Size.L));
+		assertFalse(size.isVisible(Size.S));
+		assertTrue(size.isVisible(Size.M));
+
+		// and shown again, what a rule hides stays hidden until the rule lifts
+		size.setVisible(Size.L, true);
+		unit.check(Unit.KILOMETRE);
+		assertFalse(size.isVisible(Size.L));
+		unit.check(Unit.MILE);
+		assertTrue(size.isVisible(Size.L));
+	}
+
+	public void testListenersAreToldOnlyOnceThePassIsDone() {
+		rules.compile();
+		final StringBuilder told = new StringBuilder();
+		unit.addListener(new EnumChoiceModel.Listener<Unit>() {
+			@Override
+			public void onChoiceChanged(EnumChoiceModel<Unit> changed, Unit checkedValue) {
+				// by now the rest of the pass has hidden L, and M is checked
+				told.append(checkedValue).append(' ').append(changed.isNotifyingChange())
+						.append(' ').append(size.isVisible(Size.L)).append(' ').append(size.getCheckedValue());
+			}
+		});
+		size.check(Size.L);
+		unit.addObserver(new EnumChoiceModel.Observer<Unit>() {
+			@Override
+			public void onModelChanged(EnumChoiceModel<Unit> changed) {
+				// observers are told during the pass, as the value changes silently
+				if( changed.getCheckedValue() == Unit.KILOMETRE) {
+					told.append("observed ");
+				}
+			}
+		});
+		country.check(Country.FR);
+		assertEquals("observed KILOMETRE true false M", told.toString());
+	}
+
+	public void testACycleIsRejected() {
+		rules.hide(size, Size.S, country, Country.UK);
+		try {
+			rules.compile();
+			fail("compiled a cycle");
+		} catch (IllegalStateException expected) {
+			// expected
+		}
+	}
+
+	public void testDetachRestoresAndStopsObserving() {
+		rules.compile();
+		country.check(Country.FR);
+		rules.detach();
+		for( Unit u : Unit.values()) {
+			assertTrue(u.toString(), unit.isVisible(u));
+		}
+		country.check(Country.US);
+		assertTrue(unit.isVisible(Unit.KILOMETRE));
+	}
+}
@@ -0,0 +1,172 @@
+package org.diffenbach.android.widgets.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.diffenbach.android.widgets.utils.BitMasks;
+
+/**
+ * EnumChoiceModel on a plain JVM: checking, visibility, and the order and silence of callbacks.
+ * @author TP Diffenbach
+ */
+public class EnumChoiceModelTest extends TestCase {
+
+	enum Color {
+		RED, GREEN, BLUE
+	}
+
+	private EnumChoiceModel<Color> model;
+	// what the callbacks were told, in order
+	private final List<String> calls = new ArrayList<String>();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		model = new EnumChoiceModel<Color>(Color.GREEN);
+		model.addObserver(new EnumChoiceModel.Observer<Color>() {
+			@Override
+			public void onModelChanged(EnumChoiceModel<Color> changed) {
+				calls.add("observer " + changed.getCheckedValue());
+			}
+		});
+		model.addListener(new EnumChoiceModel.Listener<Color>() {
+			@Override
+			public void onChoiceChanged(EnumChoiceModel<Color> changed, Color checkedValue) {
+				calls.add("listener " + checkedValue);
+			}
+		});
+	}
+
+	public void testStartsAtTheDefaultWithAllVisible() {
+		assertEquals(Color.GREEN, model.getCheckedValue());
+		assertEquals(Color.GREEN.ordinal(), model.getCheckedOrdinal());
+		assertTrue(model.isSetToDefault());
+		for( Color c : Color.values()) {
+			assertTrue(c.toString(), model.isVisible(c));
+		}
+		assertEquals(Color.class, model.getEnumClass());
+		assertEquals(3, model.size());
+	}
+
+	public void testCheckTellsObserversThenListeners() {
+		model.check(Color.BLUE);
+		assertEquals(Color.BLUE, model.getCheckedValue());
+		assertFalse(model.isSetToDefault());
+		assertEquals("[observer BLUE, listener BLUE]", calls.toString());
+	}
+
+	public void testCheckingTheCheckedValueTellsNoOne() {
+		model.check(Color.GREEN);
+		assertTrue(calls.isEmpty());
+	}
+
+	public void testSilentCheckTellsOnlyObservers() {
+		model.setCheckedSilently(Color.RED);
+		assertEquals(Color.RED, model.getCheckedValue());
+		assertEquals("[observer RED]", calls.toString());
+	}
+
+	public void testResetChecksTheDefault() {
+		model.check(Color.RED);
+		calls.clear();
+		model.reset();
+		assertEquals(Color.GREEN, model.getCheckedValue());
+		assertEquals("[observer GREEN, listener GREEN]", calls.toString());
+	}
+
+	public void testNotifyListenersTellsListenersEvenWithoutAChange() {
+		model.notifyListeners();
+		assertEquals("[listener GREEN]", calls.toString());
+	}
+
+	public void testListenersCanTellAChangeFromARepeat() {
+		final List<Boolean> changes = new ArrayList<Boolean>();
+		model.addListener(new EnumChoiceModel.Listener<Color>() {
+			@Override
+			public void onChoiceChanged(EnumChoiceModel<Color> changed, Color checkedValue) {
+				changes.add(changed.isNotifyingChange());
+				// a repeat from within a change's delivery doesn't end the change
+				if( checkedValue == Color.BLUE && changes.size() == 1) {
+					changed.notifyListeners();
+					changes.add(changed.isNotifyingChange());
+				}
+			}
+		});
+		model.check(Color.BLUE);
+		model.notifyListeners();
+		assertFalse(model.isNotifyingChange());
+		assertEquals("[true, false, true, false]", changes.toString());
+	}
+
+	public void testVisibilityChangesTellOnlyObserversAndOnlyOnAChange() {
+		model.setVisible(Color.RED, false);
+		assertFalse(model.isVisible(Color.RED));
+		assertFalse(model.isVisible(Color.RED.ordinal()));
+		model.setVisible(Color.RED, false);
+		assertEquals(1, calls.size());
+
+		model.filter(new EnumChoiceModel.DisplayPredicate<Color>() {
+			@Override
+			public boolean apply(Color c) {
+				return c != Color.BLUE;
+			}
+		});
+		assertTrue(model.isVisible(Color.RED));
+		assertFalse(model.isVisible(Color.BLUE));
+		assertEquals(2, calls.size());
+
+		long[] mask = model.getVisibleMask(BitMasks.newMask(model.size()));
+		model.setVisibleMask(mask);
+		assertEquals(2, calls.size());
+		BitMasks.clear(mask, Color.GREEN.ordinal());
+		model.setVisibleMask(mask);
+		assertFalse(model.isVisible(Color.GREEN));
+		assertEquals("[observer GREEN, observer GREEN, observer GREEN]", calls.toString());
+	}
+
+	public void testGetVisibleMaskCopies() {
+		long[] mask = model.getVisibleMask(BitMasks.newMask(model.size()));
+		BitMasks.clearAll(mask);
+		assertTrue(model.isVisible(Color.RED));
+	}
+
+	public void testValuesAreACopyOfTheSharedConstants() {
+		Color[] values = model.values();
+		assertEquals(3, values.length);
+		assertNotSame(EnumMetadata.of(Color.class).sharedValues(), values);
+		values[0] = null;
+		assertEquals(Color.RED, model.getValue(0));
+		assertSame(Color.BLUE, model.getValue(Color.BLUE.ordinal()));
+	}
+
+	public void testAListenerMayAddAnotherWhileBeingTold() {
+		model.addListener(new EnumChoiceModel.Listener<Color>() {
+			@Override
+			public void onChoiceChanged(EnumChoiceModel<Color> changed, Color checkedValue) {
+				changed.addListener(new EnumChoiceModel.Listener<Color>() {
+					@Override
+					public void onChoiceChanged(EnumChoiceModel<Color> again, Color value) {
+						calls.add("added " + value);
+					}
+				});
+			}
+		});
+		model.check(Color.RED);
+		assertEquals("[observer RED, listener RED, added RED]", calls.toString());
+	}
+
+	public void testRemovedCallbacksAreNotTold() {
+		EnumChoiceModel<Color> other = new EnumChoiceModel<Color>(Color.RED);
+		EnumChoiceModel.Listener<Color> listener = new EnumChoiceModel.Listener<Color>() {
+			@Override
+			public void onChoiceChanged(EnumChoiceModel<Color> changed, Color checkedValue) {
+				calls.add("listener");
+			}
+		};
+		other.addListener(listener).removeListener(listener);
+		other.check(Color.BLUE);
+		assertTrue(calls.isEmpty());
+	}
+}
@@ -0,0 +1,159 @@
+package org.diffenbach.android.widgets.model;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.diffenbach.android.widgets.utils.BitMasks;
+
+/**
+ * EnumMultiChoiceModel: the added and removed masks, silence, and changes made from listeners.
+ * @author TP Diffenbach
+ */
+public class EnumMultiChoiceModelTest extends TestCase {
+
+	enum Topping {
+		A, B, C, D
+	}
+
+	private EnumMultiChoiceModel<Topping> model;
+	// what the callbacks were told, in order
+	private final List<String> calls = new ArrayList<String>();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		model = new EnumMultiChoiceModel<Topping>(Topping.class);
+		model.addObserver(new EnumMultiChoiceModel.Observer<Topping>() {
+			@Override
+			public void onModelChanged(EnumMultiChoiceModel<Topping> changed) {
+				calls.add("observer");
+			}
+		});
+		model.addListener(recorder("listener"));
+	}
+
+	public void testStartsWithNoneCheckedAndAllVisible() {
+		assertEquals(0, model.getCheckedCount());
+		assertTrue(model.getChecked().isEmpty());
+		for( Topping t : Topping.values()) {
+			assertTrue(model.isVisible(t.ordinal()));
+		}
+	}
+
+	public void testSetCheckedReportsWhatWasAddedAndRemoved() {
+		model.setChecked(Topping.B, true);
+		model.setChecked(Topping.B, false);
+		assertEquals("[observer, listener +[B] -[], observer, listener +[] -[B]]", calls.toString());
+	}
+
+	public void testNoChangeTellsNoOne() {
+		model.setChecked(Topping.A, false);
+		model.retain(EnumSet.allOf(Topping.class));
+		model.clear();
+		assertTrue(calls.isEmpty());
+	}
+
+	public void testBulkChanges() {
+		model.checkAll(EnumSet.of(Topping.A, Topping.C));
+		assertEquals(EnumSet.of(Topping.A, Topping.C), model.getChecked());
+		model.toggle(mask(Topping.A, Topping.B));
+		assertEquals(EnumSet.of(Topping.B, Topping.C), model.getChecked());
+		model.retain(EnumSet.of(Topping.C, Topping.D));
+		assertEquals(EnumSet.of(Topping.C), model.getChecked());
+		model.checkAll(mask(Topping.D));
+		model.retain(mask(Topping.D));
+		assertEquals(EnumSet.of(Topping.D), model.getChecked());
+		model.toggle(Topping.A);
+		assertTrue(model.isChecked(Topping.A));
+		assertEquals(2, model.getCheckedCount());
+		assertEquals("[observer, listener +[A, C] -[], observer, listener +[B] -[A], observer, listener +[] -[B], "
+				+ "observer, listener +[D] -[], observer, listener +[] -[C], observer, listener +[A] -[]]", calls.toString());
+	}
+
+	public void testSilentChangesTellOnlyObservers() {
+		model.setCheckedSilently(mask(Topping.B, Topping.D));
+		assertEquals(EnumSet.of(Topping.B, Topping.D), model.getChecked());
+		assertEquals("[observer]", calls.toString());
+	}
+
+	public void testHiddenConstantsStayChecked() {
+		model.setChecked(Topping.C, true);
+		model.filter(new EnumChoiceModel.DisplayPredicate<Topping>() {
+			@Override
+			public boolean apply(Topping t) {
+				return t != Topping.C;
+			}
+		});
+		assertFalse(model.isVisible(Topping.C.ordinal()));
+		assertTrue(model.isChecked(Topping.C));
+		model.setVisible(Topping.C, true);
+		assertTrue(model.isVisible(Topping.C.ordinal()));
+	}
+
+	public void testAChangeFromAListenerReachesEveryListenerInOrder() {
+		// the first listener checks B when it's told A was checked
+		EnumMultiChoiceModel<Topping> nested = new EnumMultiChoiceModel<Topping>(Topping.class);
+		final List<String> told = new ArrayList<String>();
+		nested.addListener(new EnumMultiChoiceModel.Listener<Topping>() {
+			@Override
+			public void onSelectionChanged(EnumMultiChoiceModel<Topping> changed, long[] added, long[] removed) {
+				String before = describe("first", added, removed);
+				if( BitMasks.get(added, Topping.A.ordinal())) {
+					changed.setChecked(Topping.B, true);
+				}
+				// the masks this listener was passed are left as they were
+				told.add(before);
+				assertEquals(before, describe("first", added, removed));
+			}
+		});
+		nested.addListener(new EnumMultiChoiceModel.Listener<Topping>() {
+			@Override
+			public void onSelectionChanged(EnumMultiChoiceModel<Topping> changed, long[] added, long[] removed) {
+				told.add(describe("second", added, removed));
+			}
+		});
+		nested.setChecked(Topping.A, true);
+		// the second is told of B, the nested change, first; then of A, with A's own masks
+		assertEquals("[first +[B] -[], second +[B] -[], first +[A] -[], second +[A] -[]]", told.toString());
+		assertEquals(EnumSet.of(Topping.A, Topping.B), nested.getChecked());
+	}
+
+	public void testMaskOfAndGetCheckedMask() {
+		long[] out = model.maskOf(EnumSet.of(Topping.D), BitMasks.newMask(model.size()));
+		assertTrue(BitMasks.equals(mask(Topping.D), out));
+		model.checkAll(out);
+		assertTrue(BitMasks.equals(mask(Topping.D), model.getCheckedMask(BitMasks.newMask(model.size()))));
+	}
+
+	private EnumMultiChoiceModel.Listener<Topping> recorder(final String name) {
+		return new EnumMultiChoiceModel.Listener<Topping>() {
+			@Override
+			public void onSelectionChanged(EnumMultiChoiceModel<Topping> changed, long[] added, long[] removed) {
+				calls.add(describe(name, added, removed));
+			}
+		};
+	}
+
+	private static long[] mask(Topping... values) {
+		long[] ret = BitMasks.newMask(Topping.values().length);
+		for( Topping t : values) {
+			BitMasks.set(ret, t.ordinal());
+		}
+		return ret;
+	}
+
+	private static String describe(String name, long[] added, long[] removed) {
+		return name + " +" + toSet(added) + " -" + toSet(removed);
+	}
+
+	private static EnumSet<Topping> toSet(long[] mask) {
+		EnumSet<Topping> ret = EnumSet.noneOf(Topping.class);
+		for( int ordinal = BitMasks.nextSetBit(mask, 0); ordinal >= 0; ordinal = BitMasks.nextSetBit(mask, ordinal + 1)) {
+			ret.add(Topping.values()[ordinal]);
+		}
+		return ret;
+	}
+}
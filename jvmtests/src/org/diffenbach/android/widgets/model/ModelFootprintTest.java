@@ -0,0 +1,171 @@
+package org.diffenbach.android.widgets.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+/**
+ * Models' footprint on a plain JVM, against a measured baseline, and their sharing of EnumMetadata.
+ * @author TP Diffenbach
+ *
+ * The device suite, FootprintTest in the test project, measures whole groups; this measures
+ * what the models alone allocate, with HotSpot's exact per-thread allocated-bytes count,
+ * so a model that starts copying its enum's constants or labels fails here, off a device.
+ * Builds MODELS models of a small and of a large enum; the difference gives the bytes per constant,
+ * which sharing keeps at zero while the masks fit a word, and what's left, the bytes per model.
+ *
+ * Each measure must be within model_footprint_baseline.properties, beside this class, plus its tolerance.
+ * Every run prints what it measured in the same form, so a deliberate change can be recorded;
+ * the baseline names the JVM it was measured on, as object sizes differ between JVMs.
+ */
+public class ModelFootprintTest extends TestCase {
+
+	enum Small {
+		S0, S1, S2, S3
+	}
+
+	enum Large {
+		L0, L1, L2, L3, L4, L5, L6, L7, L8, L9, L10, L11, L12, L13, L14, L15, L16, L17, L18, L19
+	}
+
+	private static final String BASELINE_RESOURCE = "model_footprint_baseline.properties";
+	private static final int MODELS = 1000;
+
+	/**
+	 * Makes one model of the enum.
+	 */
+	private interface ModelFactory {
+		Object make(Enum<?> defaultValue);
+	}
+
+	private static final ModelFactory CHOICE = new ModelFactory() {
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		@Override
+		public Object make(Enum<?> defaultValue) {
+			return new EnumChoiceModel(defaultValue);
+		}
+	};
+
+	private static final ModelFactory MULTI_CHOICE = new ModelFactory() {
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		@Override
+		public Object make(Enum<?> defaultValue) {
+			return new EnumMultiChoiceModel(defaultValue.getDeclaringClass());
+		}
+	};
+
+	public void testFootprintWithinBaseline() throws Exception {
+		com.sun.management.ThreadMXBean threads = allocationCounter();
+		if( threads == null) {
+			System.err.println("ModelFootprintTest: this JVM can't count a thread's allocated bytes; not measured");
+			return;
+		}
+		Properties baseline = loadBaseline();
+		double tolerance = Double.parseDouble(baseline.getProperty("tolerance", "0"));
+
+		List<String> exceeded = new ArrayList<String>();
+		measure(threads, "EnumChoiceModel", CHOICE, baseline, tolerance, exceeded);
+		measure(threads, "EnumMultiChoiceModel", MULTI_CHOICE, baseline, tolerance, exceeded);
+		if( ! exceeded.isEmpty()) {
+			fail("Footprint over, or missing from, the baseline: " + exceeded);
+		}
+	}
+
+	public void testMetadataIsMadeOncePerClass() {
+		assertSame(EnumMetadata.of(Large.class), EnumMetadata.of(Large.L3));
+		assertNotSame(EnumMetadata.of(Large.class), EnumMetadata.of(Small.class));
+		assertSame(EnumMetadata.of(Large.class).sharedValues(), EnumMetadata.of(Large.class).sharedValues());
+		assertSame(EnumMetadata.of(Large.class).sharedNames(), EnumMetadata.of(Large.class).sharedNames());
+	}
+
+	public void testModelsShareTheConstants() throws Exception {
+		Object shared = EnumMetadata.of(Large.class).sharedValues();
+		assertSame(shared, fieldOf(new EnumChoiceModel<Large>(Large.L0), "enumConstants"));
+		assertSame(shared, fieldOf(new EnumChoiceModel<Large>(Large.L7), "enumConstants"));
+		assertSame(shared, fieldOf(new EnumMultiChoiceModel<Large>(Large.class), "enumConstants"));
+		assertSame(shared, fieldOf(new EnumMultiChoiceModel<Large>(Large.class), "enumConstants"));
+	}
+
+	public void testValuesIsACopyThatLeavesTheSharedArrayAlone() {
+		EnumMetadata<Large> metadata = EnumMetadata.of(Large.class);
+		Large[] copy = metadata.values();
+		assertNotSame(metadata.sharedValues(), copy);
+		copy[0] = null;
+		assertSame(Large.L0, metadata.get(0));
+		assertSame(Large.L0, metadata.forName("L0"));
+		assertEquals("L19", metadata.sharedNames()[19]);
+	}
+
+	private static void measure(com.sun.management.ThreadMXBean threads, String name, ModelFactory factory,
+			Properties baseline, double tolerance, List<String> exceeded) {
+		long small = bytesPerModel(threads, factory, Small.S0);
+		long large = bytesPerModel(threads, factory, Large.L0);
+		long perConstant = (large - small) / (Large.values().length - Small.values().length);
+		long perModel = small - perConstant * Small.values().length;
+		check(name + ".bytesPerConstant", perConstant, baseline, tolerance, exceeded);
+		check(name + ".bytesPerModel", perModel, baseline, tolerance, exceeded);
+	}
+
+	// makes and keeps MODELS models, and returns the bytes each allocated
+	private static long bytesPerModel(com.sun.management.ThreadMXBean threads, ModelFactory factory, Enum<?> defaultValue) {
+		long id = Thread.currentThread().getId();
+		Object[] kept = new Object[MODELS];
+		// once first, so what's made once per enum (its metadata) isn't counted, and the code's warm
+		for( int i = 0; i < MODELS; ++i) {
+			kept[i] = factory.make(defaultValue);
+		}
+		long before = threads.getThreadAllocatedBytes(id);
+		for( int i = 0; i < MODELS; ++i) {
+			kept[i] = factory.make(defaultValue);
+		}
+		long after = threads.getThreadAllocatedBytes(id);
+		return (after - before) / MODELS;
+	}
+
+	private static void check(String key, long value, Properties baseline, double tolerance, List<String> exceeded) {
+		System.out.println(key + "=" + value);
+		String ceiling = baseline.getProperty(key);
+		if( ceiling == null) {
+			exceeded.add(key + "=" + value + " has no baseline");
+		} else if( value > Long.parseLong(ceiling) * (1 + tolerance)) {
+			exceeded.add(key + "=" + value + " > " + ceiling);
+		}
+	}
+
+	private static com.sun.management.ThreadMXBean allocationCounter() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if( ! (threads instanceof com.sun.management.ThreadMXBean)) {
+			return null;
+		}
+		com.sun.management.ThreadMXBean ret = (com.sun.management.ThreadMXBean) threads;
+		if( ! ret.isThreadAllocatedMemorySupported()) {
+			return null;
+		}
+		ret.setThreadAllocatedMemoryEnabled(true);
+		return ret;
+	}
+
+	private static Properties loadBaseline() throws IOException {
+		InputStream in = ModelFootprintTest.class.getResourceAsStream(BASELINE_RESOURCE);
+		assertNotNull(BASELINE_RESOURCE + " not on the classpath", in);
+		Properties ret = new Properties();
+		try {
+			ret.load(in);
+		} finally {
+			in.close();
+		}
+		return ret;
+	}
+
+	private static Object fieldOf(Object model, String name) throws Exception {
+		Field f = model.getClass().getDeclaredField(name);
+		f.setAccessible(true);
+		return f.get(model);
+	}
+}
@@ -0,0 +1,196 @@
+package org.diffenbach.android.widgets.model;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+/**
+ * Posts checks from many threads at once, to test PendingCheck's lock-free coalescing,
+ * which EnumRadioGroup.postCheck uses.
+ * @author TP Diffenbach
+ *
+ * A single-thread executor stands in for the main thread: only it touches the model,
+ * and a post that returns true schedules an apply on it, as postCheck posts to a Handler.
+ * Loud constants are posted to be checked with listeners called, quiet ones silently,
+ * so the listener can tell if a post's silent flag got attached to another's value.
+ */
+public class PendingCheckTest extends TestCase {
+
+	enum Level {
+		LOUD_0, LOUD_1, LOUD_2, LOUD_3, QUIET_0, QUIET_1, QUIET_2, QUIET_3
+	}
+
+	private static final int THREADS = 8;
+	private static final int POSTS_PER_THREAD = 5000;
+	private static final int ROUNDS = 10;
+
+	private final PendingCheck pending = new PendingCheck();
+	private final EnumChoiceModel<Level> model = new EnumChoiceModel<Level>(Level.LOUD_0);
+	private ExecutorService main;
+	private Thread mainThread;
+	private final AtomicInteger listenerCalls = new AtomicInteger();
+	private final AtomicInteger applies = new AtomicInteger();
+	// the first thing the listener saw that it shouldn't have, or null
+	private final AtomicReference<String> failure = new AtomicReference<String>();
+
+	private final Runnable applier = new Runnable() {
+		@Override
+		public void run() {
+			applies.incrementAndGet();
+			pending.applyTo(model);
+		}
+	};
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		main = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				return mainThread = new Thread(r, "main stand-in");
+			}
+		});
+		model.addListener(new EnumChoiceModel.Listener<Level>() {
+			@Override
+			public void onChoiceChanged(EnumChoiceModel<Level> changed, Level checkedValue) {
+				listenerCalls.incrementAndGet();
+				if( isQuiet(checkedValue)) {
+					failure.compareAndSet(null, "listener called for silent " + checkedValue);
+				}
+				if( Thread.currentThread() != mainThread) {
+					failure.compareAndSet(null, "listener called on " + Thread.currentThread());
+				}
+			}
+		});
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		main.shutdownNow();
+		super.tearDown();
+	}
+
+	public void testABurstBeforeTheApplySchedulesOneApply() throws Exception {
+		// hold the main thread, as a busy main thread would be
+		final CountDownLatch release = new CountDownLatch(1);
+		main.execute(new Runnable() {
+			@Override
+			public void run() {
+				await(release);
+			}
+		});
+		AtomicInteger scheduled = new AtomicInteger();
+		postFromManyThreads(0, scheduled);
+		post(Level.LOUD_2, scheduled);
+		assertEquals(1, scheduled.get());
+		assertTrue(pending.isPending());
+
+		release.countDown();
+		assertEquals(Level.LOUD_2, checkedOnMain());
+		assertEquals(1, applies.get());
+		assertEquals(1, listenerCalls.get());
+		assertFalse(pending.isPending());
+		assertNull(failure.get(), failure.get());
+	}
+
+	public void testConcurrentPostsNeverLoseTheLast() throws Exception {
+		AtomicInteger scheduled = new AtomicInteger();
+		for( int round = 0; round < ROUNDS; ++round) {
+			postFromManyThreads(round, scheduled);
+			// the only post after all the others; it must be what's checked once the main thread is idle
+			Level last = Level.values()[round % Level.values().length];
+			post(last, scheduled);
+			assertEquals("round " + round, last, checkedOnMain());
+			assertFalse(pending.isPending());
+			assertNull(failure.get(), failure.get());
+		}
+		// every apply scheduled ran, and posts coalesced at least as much as they were scheduled
+		assertEquals(scheduled.get(), applies.get());
+		assertTrue(scheduled.get() <= ROUNDS * (THREADS * POSTS_PER_THREAD + 1));
+	}
+
+	public void testSilentPostsNeverCallListeners() throws Exception {
+		final AtomicInteger scheduled = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[THREADS];
+		for( int t = 0; t < THREADS; ++t) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					await(start);
+					for( int i = 0; i < POSTS_PER_THREAD; ++i) {
+						post(Level.values()[Level.QUIET_0.ordinal() + i % 4], scheduled);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for( Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(isQuiet(checkedOnMain()));
+		assertEquals(0, listenerCalls.get());
+	}
+
+	// THREADS threads, started together, each posting a random mix of loud and quiet values
+	private void postFromManyThreads(int round, final AtomicInteger scheduled) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[THREADS];
+		for( int t = 0; t < THREADS; ++t) {
+			final Random random = new Random(round * THREADS + t);
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					await(start);
+					Level[] values = Level.values();
+					for( int i = 0; i < POSTS_PER_THREAD; ++i) {
+						post(values[random.nextInt(values.length)], scheduled);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for( Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	// as postCheck does
+	private void post(Level value, AtomicInteger scheduled) {
+		if( pending.post(value.ordinal(), isQuiet(value))) {
+			scheduled.incrementAndGet();
+			main.execute(applier);
+		}
+	}
+
+	// the checked value, read on the main thread once it's done what's scheduled so far
+	private Level checkedOnMain() throws Exception {
+		return main.submit(new Callable<Level>() {
+			@Override
+			public Level call() {
+				return model.getCheckedValue();
+			}
+		}).get();
+	}
+
+	private static boolean isQuiet(Level value) {
+		return value.ordinal() >= Level.QUIET_0.ordinal();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
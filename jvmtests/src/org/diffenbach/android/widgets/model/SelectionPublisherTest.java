@@ -0,0 +1,173 @@
+package org.diffenbach.android.widgets.model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * SelectionPublisher: demand, conflation, pausing, completing, and not leaking the publisher.
+ * @author TP Diffenbach
+ */
+public class SelectionPublisherTest extends TestCase {
+
+	enum Mode {
+		A, B, C
+	}
+
+	/**
+	 * Records what it's told, and requests as many as it's set up to.
+	 */
+	private static class Recorder implements SelectionPublisher.Subscriber<Mode> {
+		final List<String> told = new ArrayList<String>();
+		final long initialRequest;
+		SelectionPublisher.Subscription subscription;
+
+		Recorder(long initialRequest) {
+			this.initialRequest = initialRequest;
+		}
+
+		@Override
+		public void onSubscribe(SelectionPublisher.Subscription s) {
+			subscription = s;
+			told.add("subscribed");
+			if( initialRequest > 0) {
+				s.request(initialRequest);
+			}
+		}
+
+		@Override
+		public void onNext(Mode value) {
+			told.add(value.toString());
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			told.add("error");
+		}
+
+		@Override
+		public void onComplete() {
+			told.add("complete");
+		}
+	}
+
+	private EnumChoiceModel<Mode> model;
+	private SelectionPublisher<Mode> publisher;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		model = new EnumChoiceModel<Mode>(Mode.A);
+		publisher = new SelectionPublisher<Mode>(model);
+	}
+
+	public void testSubscribersStartWithTheCurrentValueOnceStarted() {
+		Recorder r = new Recorder(Long.MAX_VALUE);
+		publisher.subscribe(r);
+		assertTrue(r.told.isEmpty());
+		model.check(Mode.B);
+		publisher.start();
+		model.check(Mode.C);
+		assertEquals("[subscribed, B, C]", r.told.toString());
+	}
+
+	public void testWithoutDemandOnlyTheLatestIsKept() {
+		Recorder r = new Recorder(1);
+		publisher.start();
+		publisher.subscribe(r);
+		model.check(Mode.B);
+		model.check(Mode.C);
+		model.check(Mode.B);
+		assertEquals("[subscribed, A]", r.told.toString());
+		r.subscription.request(5);
+		model.check(Mode.A);
+		assertEquals("[subscribed, A, B, A]", r.told.toString());
+	}
+
+	public void testVisibilityChangesArentPublished() {
+		Recorder r = new Recorder(Long.MAX_VALUE);
+		publisher.start();
+		publisher.subscribe(r);
+		model.setVisible(Mode.C, false);
+		model.setCheckedSilently(Mode.B);
+		assertEquals("[subscribed, A, B]", r.told.toString());
+	}
+
+	public void testStopPausesAndStartResumesWithTheLatest() {
+		Recorder r = new Recorder(Long.MAX_VALUE);
+		publisher.subscribe(r);
+		publisher.start();
+		model.check(Mode.B);
+		publisher.stop();
+		model.check(Mode.C);
+		model.check(Mode.A);
+		model.check(Mode.C);
+		assertEquals("[subscribed, A, B]", r.told.toString());
+		publisher.start();
+		assertEquals("[subscribed, A, B, C]", r.told.toString());
+
+		// unchanged while stopped: nothing on resuming
+		publisher.stop();
+		publisher.start();
+		assertEquals("[subscribed, A, B, C]", r.told.toString());
+		assertEquals(1, publisher.getSubscriberCount());
+	}
+
+	public void testCompleteEndsSubscribersForGood() {
+		Recorder r = new Recorder(Long.MAX_VALUE);
+		publisher.subscribe(r);
+		publisher.start();
+		publisher.complete();
+		assertFalse(publisher.isStarted());
+		assertEquals(0, publisher.getSubscriberCount());
+		publisher.start();
+		model.check(Mode.B);
+		assertEquals("[subscribed, A, complete]", r.told.toString());
+	}
+
+	public void testCancelAndBadRequests() {
+		Recorder cancelled = new Recorder(Long.MAX_VALUE);
+		Recorder bad = new Recorder(0);
+		publisher.start();
+		publisher.subscribe(cancelled);
+		publisher.subscribe(bad);
+		cancelled.subscription.cancel();
+		cancelled.subscription.cancel();
+		bad.subscription.request(0);
+		model.check(Mode.B);
+		assertEquals("[subscribed, A]", cancelled.told.toString());
+		assertEquals("[subscribed, error]", bad.told.toString());
+		assertEquals(0, publisher.getSubscriberCount());
+	}
+
+	public void testSetModelPublishesTheNewModel() {
+		Recorder r = new Recorder(Long.MAX_VALUE);
+		publisher.start();
+		publisher.subscribe(r);
+		EnumChoiceModel<Mode> other = new EnumChoiceModel<Mode>(Mode.C);
+		publisher.setModel(other);
+		model.check(Mode.B);
+		other.check(Mode.A);
+		assertEquals("[subscribed, A, C, A]", r.told.toString());
+	}
+
+	public void testAKeptSubscriptionDoesntKeepThePublisher() throws Exception {
+		Recorder r = new Recorder(Long.MAX_VALUE);
+		publisher.subscribe(r);
+		publisher.start();
+		publisher.stop();
+		WeakReference<SelectionPublisher<Mode>> weak = new WeakReference<SelectionPublisher<Mode>>(publisher);
+		publisher = null;
+		model = null;
+		for( int i = 0; i < 20 && weak.get() != null; ++i) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull("publisher kept alive by its subscription", weak.get());
+		// and a subscription whose publisher is gone can still be used
+		r.subscription.request(1);
+		r.subscription.cancel();
+	}
+}
@@ -0,0 +1,93 @@
+package org.diffenbach.android.widgets.utils;
+
+import junit.framework.TestCase;
+
+/**
+ * BitMasks, especially at and across word boundaries.
+ * @author TP Diffenbach
+ */
+public class BitMasksTest extends TestCase {
+
+	public void testWordsFor() {
+		assertEquals(0, BitMasks.wordsFor(0));
+		assertEquals(1, BitMasks.wordsFor(1));
+		assertEquals(1, BitMasks.wordsFor(64));
+		assertEquals(2, BitMasks.wordsFor(65));
+		assertEquals(3, BitMasks.wordsFor(130));
+	}
+
+	public void testSetAllSetsExactlyTheLowestBits() {
+		int[] sizes = { 0, 1, 63, 64, 65, 128, 130 };
+		for( int bits : sizes) {
+			long[] mask = BitMasks.setAll(BitMasks.newMask(bits), bits);
+			assertEquals("size " + bits, bits, BitMasks.cardinality(mask));
+			for( int bit = 0; bit < bits; ++bit) {
+				assertTrue("size " + bits + " bit " + bit, BitMasks.get(mask, bit));
+			}
+		}
+		// a larger mask keeps the bits beyond clear
+		long[] mask = BitMasks.setAll(new long[] { 0L, -1L, -1L }, 70);
+		assertEquals(70, BitMasks.cardinality(mask));
+		assertEquals(0L, mask[2]);
+	}
+
+	public void testSetClearGetAcrossWords() {
+		long[] mask = BitMasks.newMask(130);
+		BitMasks.set(mask, 0);
+		BitMasks.set(mask, 63);
+		BitMasks.set(mask, 64);
+		BitMasks.set(mask, 129, true);
+		assertEquals(4, BitMasks.cardinality(mask));
+		assertTrue(BitMasks.get(mask, 63));
+		assertTrue(BitMasks.get(mask, 64));
+		assertFalse(BitMasks.get(mask, 65));
+		BitMasks.clear(mask, 63);
+		BitMasks.set(mask, 129, false);
+		assertFalse(BitMasks.get(mask, 63));
+		assertFalse(BitMasks.get(mask, 129));
+		assertEquals(2, BitMasks.cardinality(mask));
+		assertTrue(BitMasks.isEmpty(BitMasks.clearAll(mask)));
+	}
+
+	public void testNextSetBit() {
+		long[] mask = BitMasks.newMask(200);
+		assertEquals(-1, BitMasks.nextSetBit(mask, 0));
+		BitMasks.set(mask, 5);
+		BitMasks.set(mask, 64);
+		BitMasks.set(mask, 199);
+		assertEquals(5, BitMasks.nextSetBit(mask, 0));
+		assertEquals(5, BitMasks.nextSetBit(mask, 5));
+		assertEquals(64, BitMasks.nextSetBit(mask, 6));
+		assertEquals(199, BitMasks.nextSetBit(mask, 65));
+		assertEquals(-1, BitMasks.nextSetBit(mask, 200));
+		assertEquals(-1, BitMasks.nextSetBit(mask, 1000));
+
+		StringBuilder seen = new StringBuilder();
+		for( int bit = BitMasks.nextSetBit(mask, 0); bit >= 0; bit = BitMasks.nextSetBit(mask, bit + 1)) {
+			seen.append(bit).append(' ');
+		}
+		assertEquals("5 64 199 ", seen.toString());
+	}
+
+	public void testSetOperations() {
+		long[] a = { 0x0FL, 1L };
+		long[] b = { 0x3CL, 3L };
+		assertTrue(BitMasks.equals(new long[] { 0x0CL, 1L }, BitMasks.and(a.clone(), b)));
+		assertTrue(BitMasks.equals(new long[] { 0x3FL, 3L }, BitMasks.or(a.clone(), b)));
+		assertTrue(BitMasks.equals(new long[] { 0x03L, 0L }, BitMasks.andNot(a.clone(), b)));
+		assertTrue(BitMasks.equals(new long[] { 0x33L, 2L }, BitMasks.xor(a, b, new long[2])));
+		// xor in place
+		long[] c = a.clone();
+		assertSame(c, BitMasks.xor(c, b, c));
+		assertTrue(BitMasks.equals(new long[] { 0x33L, 2L }, c));
+	}
+
+	public void testCopyAndEquals() {
+		long[] from = { 1L, 2L };
+		long[] to = new long[2];
+		assertSame(to, BitMasks.copy(from, to));
+		assertTrue(BitMasks.equals(from, to));
+		to[1] = 3L;
+		assertFalse(BitMasks.equals(from, to));
+	}
+}
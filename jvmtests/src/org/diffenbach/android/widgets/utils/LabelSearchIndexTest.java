@@ -0,0 +1,86 @@
+package org.diffenbach.android.widgets.utils;
+
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * LabelSearchIndex against a plain substring scan, and its folding and narrowing.
+ * @author TP Diffenbach
+ */
+public class LabelSearchIndexTest extends TestCase {
+
+	private static final String[] LABELS = { "Red", "Green", "Blue", "Dark Red", "abcab", "aXbc", "", null };
+
+	private final LabelSearchIndex folding = new LabelSearchIndex(LABELS, Locale.US);
+	private final LabelSearchIndex exact = new LabelSearchIndex(LABELS, null);
+
+	public void testMatchesWhatAScanMatches() {
+		String[] queries = { "r", "re", "red", "e", "ee", "abca", "bcab", "abc", "xb", "zz", "dark r", "n" };
+		for( String query : queries) {
+			long[] out = BitMasks.newMask(LABELS.length);
+			boolean any = folding.query(folding.fold(query), null, out);
+			long[] expected = scan(query);
+			assertEquals(query, ! BitMasks.isEmpty(expected), any);
+			assertTrue(query, BitMasks.equals(expected, out));
+		}
+	}
+
+	public void testBigramsAloneDontMatch() {
+		// "abcab" has the bigrams of "abca" and "cabc" alike, but contains only the first
+		long[] out = BitMasks.newMask(LABELS.length);
+		assertTrue(folding.query("abca", null, out));
+		assertFalse(folding.query("cabc", null, out));
+		assertTrue(BitMasks.isEmpty(out));
+	}
+
+	public void testFoldingIsOptional() {
+		long[] out = BitMasks.newMask(LABELS.length);
+		assertTrue(folding.query(folding.fold("RED"), null, out));
+		assertEquals(2, BitMasks.cardinality(out));
+		assertFalse(exact.query(exact.fold("RED"), null, out));
+		assertTrue(exact.query(exact.fold("Red"), null, out));
+		assertEquals(2, BitMasks.cardinality(out));
+		assertTrue(exact.query(exact.fold("ed"), null, out));
+		assertEquals(2, BitMasks.cardinality(out));
+	}
+
+	public void testCandidatesNarrowInPlace() {
+		long[] out = BitMasks.newMask(LABELS.length);
+		assertTrue(folding.query("r", null, out));
+		assertEquals(3, BitMasks.cardinality(out));
+		assertTrue(folding.query("re", out, out));
+		assertEquals(3, BitMasks.cardinality(out));
+		assertTrue(folding.query("red", out, out));
+		assertEquals(2, BitMasks.cardinality(out));
+		assertTrue(BitMasks.get(out, 0));
+		assertTrue(BitMasks.get(out, 3));
+
+		// a candidate left out stays out, even though it matches
+		long[] candidates = BitMasks.newMask(LABELS.length);
+		BitMasks.set(candidates, 3);
+		assertTrue(folding.query("red", candidates, out));
+		assertEquals(1, BitMasks.cardinality(out));
+		assertEquals(1, BitMasks.cardinality(candidates));
+	}
+
+	public void testEmptyAndNullLabelsMatchNothing() {
+		assertEquals(LABELS.length, folding.size());
+		long[] out = BitMasks.newMask(LABELS.length);
+		for( char c = 'a'; c <= 'z'; ++c) {
+			folding.query(String.valueOf(c), null, out);
+			assertFalse(BitMasks.get(out, 6));
+			assertFalse(BitMasks.get(out, 7));
+		}
+	}
+
+	private static long[] scan(String query) {
+		long[] ret = BitMasks.newMask(LABELS.length);
+		for( int i = 0; i < LABELS.length; ++i) {
+			if( LABELS[i] != null && LABELS[i].toLowerCase(Locale.US).contains(query.toLowerCase(Locale.US))) {
+				BitMasks.set(ret, i);
+			}
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,274 @@
+package org.diffenbach.android.widgets.model;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.diffenbach.android.widgets.utils.BitMasks;
+
+/**
+ * Cascading visibility between EnumChoiceModels: "when A is X, hide B's P and Q".
+ * @author TP Diffenbach
+ *
+ * Rules are declared with hide(), then compiled: for each pair of models with a rule
+ * between them, a table indexed by the source's checked ordinal gives the mask
+ * (see BitMasks) of the target's constants to hide. The models are ordered so that
+ * every source comes before its targets.
+ *
+ * When any compiled model changes, the whole graph is evaluated in that order, in one pass:
+ * each target is given the union of the hidden masks of all its sources' checked values,
+ * which it keeps apart from its own visibility (see EnumChoiceModel.isVisible). So a filter,
+ * setVisible or setVisibleMask on a target, before or after compile, is never undone by the rules,
+ * and the rules hide on top of it.
+ * If a target's checked value becomes hidden, it is checked silently to its default, or if that's
+ * hidden too, to its first visible value; its own targets then see that new value. Once the pass
+ * is done, the listeners of each target so checked are told, in order, so no listener sees
+ * the rules half-evaluated.
+ *
+ * For EnumRadioGroups, use their getModel(). Like the models, not thread-safe.
+ */
+public class DependencyRules {
+
+	private static final String EXC_MSG_CYCLE = "Rules have a cycle among %d models; they can't be ordered";
+
+	private final List<Rule> rules = new ArrayList<Rule>();
+	// every model with a rule, sources before targets, once compiled
+	private Node<?>[] order = new Node<?>[0];
+	private boolean evaluating;
+
+	/**
+	 * Declares that when source is checked to when, the constants in hidden are hidden in target.
+	 * Takes effect on the next compile().
+	 * @param source
+	 * @param when
+	 * @param target
+	 * @param hidden
+	 * @return this, for chaining
+	 */
+	public <S extends Enum<S>, D extends Enum<D>> DependencyRules hide(
+			EnumChoiceModel<S> source, S when, EnumChoiceModel<D> target, EnumSet<D> hidden) {
+		long[] mask = BitMasks.newMask(target.size());
+		for( D value : hidden) {
+			BitMasks.set(mask, value.ordinal());
+		}
+		rules.add(new Rule(source, when.ordinal(), target, mask));
+		return this;
+	}
+
+	public <S extends Enum<S>, D extends Enum<D>> DependencyRules hide(
+			EnumChoiceModel<S> source, S when, EnumChoiceModel<D> target, D first, D... rest) {
+		return hide(source, when, target, EnumSet.of(first, rest));
+	}
+
+	/**
+	 * Compiles the rules into tables, starts observing the models, and evaluates.
+	 * @return this, for chaining
+	 * @throws IllegalStateException if the rules have a cycle
+	 */
+	public DependencyRules compile() {
+		detach();
+
+		Map<EnumChoiceModel<?>, Node<?>> nodes = new IdentityHashMap<EnumChoiceModel<?>, Node<?>>();
+		for( Rule rule : rules) {
+			Node<?> source = nodeFor(nodes, rule.source);
+			Node<?> target = nodeFor(nodes, rule.target);
+			source.edgeTo(target).hide(rule.when, rule.hidden);
+		}
+
+		// Kahn's algorithm: repeatedly take a node none of whose sources remain
+		List<Node<?>> sorted = new ArrayList<Node<?>>(nodes.size());
+		for( Node<?> node : nodes.values()) {
+			if( node.pending == 0) {
+				sorted.add(node);
+			}
+		}
+		for( int next = 0; next < sorted.size(); ++next) {
+			for( Edge edge : sorted.get(next).outgoing) {
+				if( --edge.target.pending == 0) {
+					sorted.add(edge.target);
+				}
+			}
+		}
+		if( sorted.size() != nodes.size()) {
+			throw new IllegalStateException(String.format(EXC_MSG_CYCLE, nodes.size() - sorted.size()));
+		}
+
+		order = sorted.toArray(new Node<?>[sorted.size()]);
+		for( Node<?> node : order) {
+			node.compile();
+			node.attach();
+		}
+		evaluate();
+		return this;
+	}
+
+	/**
+	 * Stops observing the models, and stops hiding anything in the targets, leaving them
+	 * with their own visibility. The rules remain, and can be compiled again.
+	 */
+	public void detach() {
+		for( Node<?> node : order) {
+			node.detach();
+		}
+		order = new Node<?>[0];
+	}
+
+	/**
+	 * Evaluates every compiled rule in one pass, sources before targets.
+	 * Called automatically whenever a compiled model changes.
+	 */
+	public void evaluate() {
+		if( evaluating) {
+			// we're the ones changing it
+			return;
+		}
+		evaluating = true;
+		try {
+			for( Node<?> node : order) {
+				node.evaluate();
+			}
+		} finally {
+			evaluating = false;
+		}
+		// a listener that changes a model starts another pass
+		for( Node<?> node : order) {
+			node.notifyIfChecked();
+		}
+	}
+
+	private <T extends Enum<T>> Node<T> nodeFor(Map<EnumChoiceModel<?>, Node<?>> nodes, EnumChoiceModel<T> model) {
+		@SuppressWarnings("unchecked")
+		Node<T> node = (Node<T>) nodes.get(model);
+		if( node == null) {
+			nodes.put(model, node = new Node<T>(model));
+		}
+		return node;
+	}
+
+	private static class Rule {
+		private final EnumChoiceModel<?> source;
+		private final int when;
+		private final EnumChoiceModel<?> target;
+		private final long[] hidden;
+
+		private Rule(EnumChoiceModel<?> source, int when, EnumChoiceModel<?> target, long[] hidden) {
+			this.source = source;
+			this.when = when;
+			this.target = target;
+			this.hidden = hidden;
+		}
+	}
+
+	private static class Edge {
+		private final Node<?> source;
+		private final Node<?> target;
+		// by the source's checked ordinal, the mask of target ordinals to hide
+		private final long[][] table;
+
+		private Edge(Node<?> source, Node<?> target) {
+			this.source = source;
+			this.target = target;
+			this.table = new long[source.model.size()][];
+			long[] none = BitMasks.newMask(target.model.size());
+			for( int ordinal = 0; ordinal < table.length; ++ordinal) {
+				table[ordinal] = none;
+			}
+		}
+
+		private void hide(int when, long[] hidden) {
+			if( BitMasks.isEmpty(table[when])) {
+				table[when] = hidden.clone();
+			} else {
+				BitMasks.or(table[when], hidden);
+			}
+		}
+	}
+
+	private class Node<T extends Enum<T>> implements EnumChoiceModel.Observer<T> {
+		private final EnumChoiceModel<T> model;
+		private final List<Edge> outgoing = new ArrayList<Edge>();
+		private final List<Edge> incomingList = new ArrayList<Edge>();
+		// arrays once compiled, so evaluating allocates nothing
+		private Edge[] incoming;
+		private long[] hidden;
+		// set when the pass checked a new value, silently, so its listeners are told after the pass
+		private boolean checked;
+		// incoming edges from nodes not yet sorted
+		private int pending;
+
+		private Node(EnumChoiceModel<T> model) {
+			this.model = model;
+		}
+
+		private Edge edgeTo(Node<?> target) {
+			for( Edge edge : outgoing) {
+				if( edge.target == target) {
+					return edge;
+				}
+			}
+			Edge edge = new Edge(this, target);
+			outgoing.add(edge);
+			target.incomingList.add(edge);
+			++target.pending;
+			return edge;
+		}
+
+		private void compile() {
+			incoming = incomingList.toArray(new Edge[incomingList.size()]);
+			hidden = BitMasks.newMask(model.size());
+		}
+
+		private void evaluate() {
+			if( incoming.length == 0) {
+				return;
+			}
+			BitMasks.clearAll(hidden);
+			for( Edge edge : incoming) {
+				BitMasks.or(hidden, edge.table[edge.source.model.getCheckedOrdinal()]);
+			}
+			model.setRuleHiddenMask(hidden);
+			if( ! model.isVisible(model.getCheckedOrdinal())) {
+				int replacement = model.isVisible(model.getDefault()) ? model.getDefault().ordinal() : firstVisible();
+				if( replacement >= 0) {
+					model.setCheckedSilently(model.getValue(replacement));
+					checked = true;
+				}
+			}
+		}
+
+		private int firstVisible() {
+			for( int ordinal = 0; ordinal < model.size(); ++ordinal) {
+				if( model.isVisible(ordinal)) {
+					return ordinal;
+				}
+			}
+			return -1;
+		}
+
+		private void notifyIfChecked() {
+			if( checked) {
+				checked = false;
+				model.notifyListeners(true);
+			}
+		}
+
+		private void attach() {
+			model.addObserver(this);
+		}
+
+		private void detach() {
+			model.removeObserver(this);
+			checked = false;
+			if( incoming.length != 0) {
+				model.setRuleHiddenMask(null);
+			}
+		}
+
+		@Override
+		public void onModelChanged(EnumChoiceModel<T> changed) {
+			DependencyRules.this.evaluate();
+		}
+	}
+}
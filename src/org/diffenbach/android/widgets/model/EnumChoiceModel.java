@@ -0,0 +1,332 @@
+package org.diffenbach.android.widgets.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.diffenbach.android.widgets.utils.BitMasks;
+
+/**
+ * The state of a choice of one of an enum's constants, without any Views:
+ * the checked constant, which constants are visible, the default, and the listeners.
+ * @author TP Diffenbach
+ *
+ * @param <T> An Enum class (<T extends Enum<T>>)
+ *
+ * EnumChoiceModel has no android dependencies, so it can be tested and benchmarked
+ * on a plain JVM, and built or changed off the main thread.
+ * It is not itself thread-safe: once a model is rendered by a View
+ * (see org.diffenbach.android.widgets.ui.EnumRadioGroup.setModel), only change it
+ * on the main thread.
+ *
+ * There are two sorts of callbacks:
+ * Observers are told of every change, including silent ones; they're how Views stay in sync.
+ * Listeners are told when the checked value changes, unless it changed silently.
+ * Observers are always called before Listeners, so a Listener sees Views already updated.
+ */
+public class EnumChoiceModel<T extends Enum<T>> {
+
+	/**
+	 * Told when the checked value changes, unless it was changed silently.
+	 */
+	public interface Listener<T extends Enum<T>> {
+		void onChoiceChanged(EnumChoiceModel<T> model, T checkedValue);
+	}
+
+	/**
+	 * Told of every change to a model: checked value or visibility, silent or not.
+	 */
+	public interface Observer<T extends Enum<T>> {
+		void onModelChanged(EnumChoiceModel<T> model);
+	}
+
+	/**
+	 * Predicate for setting visibility
+	 * @author TP Diffenbach
+	 *
+	 * @param <T>
+	 */
+	public interface DisplayPredicate <T extends Enum<T>> {
+		boolean apply(T enumConstant);
+	}
+
+	private final T defaultValue;
+	private final T[] enumConstants;
+	private int checkedOrdinal;
+	// a mask of the visible ordinals, see BitMasks, as filter, setVisible and setVisibleMask leave it
+	private final long[] visibleMask;
+	// the ordinals DependencyRules hide, kept apart so a rule doesn't undo a filter, nor a filter a rule;
+	// null while no rules target us
+	private long[] ruleHiddenMask;
+	private final List<Listener<T>> listeners = new ArrayList<Listener<T>>();
+	private final List<Observer<T>> observers = new ArrayList<Observer<T>>();
+	// true while listeners are told of a change, false while notifyListeners repeats the checked value
+	private boolean notifyingChange;
+
+	/**
+	 * Makes a model with all constants visible and the default checked.
+	 * @param defaultValue the checked value if no other value is checked
+	 */
+	public EnumChoiceModel(T defaultValue) {
+		this.defaultValue = defaultValue;
+		this.enumConstants = EnumMetadata.of(defaultValue).sharedValues();
+		this.checkedOrdinal = defaultValue.ordinal();
+		this.visibleMask = BitMasks.setAll(BitMasks.newMask(enumConstants.length), enumConstants.length);
+	}
+
+	/**
+	 * Return the default enum constant, as set in the ctor.
+	 * @return
+	 */
+	public T getDefault() {
+		return defaultValue;
+	}
+
+	/**
+	 * Determines if the checked value is the default value set in the ctor.
+	 * @return true iff the checked value is the default value
+	 */
+	public boolean isSetToDefault() {
+		return checkedOrdinal == defaultValue.ordinal();
+	}
+
+	public T getCheckedValue() {
+		return enumConstants[checkedOrdinal];
+	}
+
+	public int getCheckedOrdinal() {
+		return checkedOrdinal;
+	}
+
+	/**
+	 * Returns the enum constant with the ordinal, without values()'s copy.
+	 * @param ordinal
+	 * @return the enum constant
+	 */
+	public T getValue(int ordinal) {
+		return enumConstants[ordinal];
+	}
+
+	/**
+	 * Checks the value, telling observers and then listeners if it changed.
+	 * @param value the enum constant to check
+	 * @return this, for chaining
+	 */
+	public EnumChoiceModel<T> check(T value) {
+		if( setChecked(value)) {
+			notifyObservers();
+			notifyListeners(true);
+		}
+		return this;
+	}
+
+	/**
+	 * Checks the value, telling observers but not listeners, as on a restore from bundle
+	 * @param value the enum constant to check
+	 * @return this, for chaining
+	 */
+	public EnumChoiceModel<T> setCheckedSilently(T value) {
+		if( setChecked(value)) {
+			notifyObservers();
+		}
+		return this;
+	}
+
+	/**
+	 * Checks the default value.
+	 * @return this, for chaining
+	 */
+	public EnumChoiceModel<T> reset() {
+		return check(defaultValue);
+	}
+
+	/**
+	 * Visible constants are those filter, setVisible and setVisibleMask show,
+	 * less any DependencyRules hide.
+	 * @param value
+	 * @return true if the constant is visible
+	 */
+	public boolean isVisible(T value) {
+		return isVisible(value.ordinal());
+	}
+
+	public boolean isVisible(int ordinal) {
+		return BitMasks.get(visibleMask, ordinal) && (ruleHiddenMask == null || ! BitMasks.get(ruleHiddenMask, ordinal));
+	}
+
+	/**
+	 * Copies the mask of visible ordinals (see BitMasks) into out; see isVisible.
+	 * @param out a mask at least as large as values().length
+	 * @return out, for chaining
+	 */
+	public long[] getVisibleMask(long[] out) {
+		BitMasks.copy(visibleMask, out);
+		return ruleHiddenMask == null ? out : BitMasks.andNot(out, ruleHiddenMask);
+	}
+
+	/**
+	 * Shows only enum constants that pass the filter.
+	 * @param pred
+	 * @return this, for chaining
+	 */
+	public EnumChoiceModel<T> filter(DisplayPredicate<T> pred) {
+		boolean changed = false;
+		for( T ec : enumConstants) {
+			changed |= setVisibleBit(ec.ordinal(), pred.apply(ec));
+		}
+		if( changed) {
+			notifyObservers();
+		}
+		return this;
+	}
+
+	/**
+	 * Shows or hides one enum constant.
+	 * @param value
+	 * @param visible
+	 * @return this, for chaining
+	 */
+	public EnumChoiceModel<T> setVisible(T value, boolean visible) {
+		if( setVisibleBit(value.ordinal(), visible)) {
+			notifyObservers();
+		}
+		return this;
+	}
+
+	/**
+	 * Shows exactly the ordinals in the mask, less any DependencyRules hide.
+	 * @param mask a mask (see BitMasks) of the ordinals to show
+	 * @return this, for chaining
+	 */
+	public EnumChoiceModel<T> setVisibleMask(long[] mask) {
+		if( ! BitMasks.equals(visibleMask, mask)) {
+			BitMasks.copy(mask, visibleMask);
+			notifyObservers();
+		}
+		return this;
+	}
+
+	/**
+	 * Package-private, for DependencyRules: hides the ordinals in the mask, on top of the visibility
+	 * the public methods set, telling observers if that changes.
+	 * @param mask a mask (see BitMasks) of the ordinals to hide; copied. Or null to hide none
+	 */
+	void setRuleHiddenMask(long[] mask) {
+		if( mask == null) {
+			long[] old = ruleHiddenMask;
+			ruleHiddenMask = null;
+			if( old != null && ! BitMasks.isEmpty(old)) {
+				notifyObservers();
+			}
+		} else if( ruleHiddenMask == null) {
+			ruleHiddenMask = mask.clone();
+			if( ! BitMasks.isEmpty(mask)) {
+				notifyObservers();
+			}
+		} else if( ! BitMasks.equals(ruleHiddenMask, mask)) {
+			BitMasks.copy(mask, ruleHiddenMask);
+			notifyObservers();
+		}
+	}
+
+	/**
+	 * @return a copy of the enum constants
+	 */
+	public T[] values() {
+		return enumConstants.clone();
+	}
+
+	/**
+	 * @return the number of enum constants
+	 */
+	public int size() {
+		return enumConstants.length;
+	}
+
+	public Class<T> getEnumClass() {
+		return defaultValue.getDeclaringClass();
+	}
+
+	public EnumChoiceModel<T> addListener(Listener<T> listener) {
+		listeners.add(listener);
+		return this;
+	}
+
+	public EnumChoiceModel<T> removeListener(Listener<T> listener) {
+		listeners.remove(listener);
+		return this;
+	}
+
+	public EnumChoiceModel<T> addObserver(Observer<T> observer) {
+		observers.add(observer);
+		return this;
+	}
+
+	public EnumChoiceModel<T> removeObserver(Observer<T> observer) {
+		observers.remove(observer);
+		return this;
+	}
+
+	/**
+	 * Tells all listeners the current checked value, whether or not it changed.
+	 */
+	public void notifyListeners() {
+		notifyListeners(false);
+	}
+
+	/**
+	 * For a listener: tells whether it's being told of a change made by check,
+	 * or of the checked value repeated by notifyListeners (as on a re-click, see
+	 * org.diffenbach.android.widgets.ui.EnumRadioGroup.callOnChecked).
+	 * @return true if the checked value just changed
+	 */
+	public boolean isNotifyingChange() {
+		return notifyingChange;
+	}
+
+	/**
+	 * Package-private, for DependencyRules, which checks silently during its pass
+	 * and tells listeners once the pass is done.
+	 * @param change what isNotifyingChange tells the listeners
+	 */
+	void notifyListeners(boolean change) {
+		T value = getCheckedValue();
+		// saved, since a listener may check another value, or repeat this one
+		boolean outer = notifyingChange;
+		notifyingChange = change;
+		try {
+			// by index, so a listener may add another without a ConcurrentModificationException
+			for( int i = 0; i < listeners.size(); ++i) {
+				listeners.get(i).onChoiceChanged(this, value);
+			}
+		} finally {
+			notifyingChange = outer;
+		}
+	}
+
+	protected void notifyObservers() {
+		for( int i = 0; i < observers.size(); ++i) {
+			observers.get(i).onModelChanged(this);
+		}
+	}
+
+	private boolean setChecked(T value) {
+		if( value.ordinal() == checkedOrdinal) {
+			return false;
+		}
+		checkedOrdinal = value.ordinal();
+		return true;
+	}
+
+	private boolean setVisibleBit(int ordinal, boolean visible) {
+		if( BitMasks.get(visibleMask, ordinal) == visible) {
+			return false;
+		}
+		BitMasks.set(visibleMask, ordinal, visible);
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "EnumChoiceModel " + getCheckedValue() + " of " + getEnumClass().getName();
+	}
+}
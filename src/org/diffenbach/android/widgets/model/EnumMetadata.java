@@ -0,0 +1,110 @@
+package org.diffenbach.android.widgets.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What every model and group of an enum class needs to know about it, made once per class
+ * and shared: its constants, their default labels, and a name -> constant lookup.
+ * @author TP Diffenbach
+ *
+ * @param <T> An Enum class (<T extends Enum<T>>)
+ *
+ * Class.getEnumConstants() copies the constants on every call, so without this every
+ * model and group would keep its own copy, and its own array of toString() labels.
+ * The arrays here are shared, so they must not be changed; values() is for callers
+ * who need a copy they can change.
+ * Thread-safe.
+ */
+public final class EnumMetadata<T extends Enum<T>> {
+
+	// enum classes are few, and live as long as their class loader, as this does
+	private static final Map<Class<?>, EnumMetadata<?>> cache = new HashMap<Class<?>, EnumMetadata<?>>();
+
+	/**
+	 * Returns the shared metadata of the enum class, making it on first use.
+	 * @param enumClass
+	 * @return the metadata
+	 */
+	public static <T extends Enum<T>> EnumMetadata<T> of(Class<T> enumClass) {
+		synchronized (cache) {
+			@SuppressWarnings("unchecked")
+			EnumMetadata<T> ret = (EnumMetadata<T>) cache.get(enumClass);
+			if( ret == null) {
+				ret = new EnumMetadata<T>(enumClass);
+				cache.put(enumClass, ret);
+			}
+			return ret;
+		}
+	}
+
+	public static <T extends Enum<T>> EnumMetadata<T> of(T value) {
+		return of(value.getDeclaringClass());
+	}
+
+	private final Class<T> enumClass;
+	private final T[] constants;
+	private final String[] names;
+	private final Map<String, T> byName;
+
+	private EnumMetadata(Class<T> enumClass) {
+		this.enumClass = enumClass;
+		this.constants = enumClass.getEnumConstants();
+		this.names = new String[constants.length];
+		this.byName = new HashMap<String, T>(constants.length * 2);
+		for( T ec : constants) {
+			names[ec.ordinal()] = ec.toString();
+			byName.put(ec.name(), ec);
+		}
+	}
+
+	public Class<T> getEnumClass() {
+		return enumClass;
+	}
+
+	public int size() {
+		return constants.length;
+	}
+
+	/**
+	 * @param ordinal
+	 * @return the constant with the ordinal
+	 */
+	public T get(int ordinal) {
+		return constants[ordinal];
+	}
+
+	/**
+	 * Returns the constant with the name (as Enum.name()), or null, unlike Enum.valueOf,
+	 * which throws; for names stored by an older version of the enum.
+	 * @param name
+	 * @return the constant, or null
+	 */
+	public T forName(String name) {
+		return byName.get(name);
+	}
+
+	/**
+	 * Returns the shared array of constants, by ordinal. Don't change it.
+	 * @return the constants
+	 */
+	public T[] sharedValues() {
+		return constants;
+	}
+
+	/**
+	 * @return a copy of the constants
+	 */
+	public T[] values() {
+		return constants.clone();
+	}
+
+	/**
+	 * Returns the shared array of the constants' toString()s, by ordinal; the default labels.
+	 * Don't change it.
+	 * @return the labels
+	 */
+	public String[] sharedNames() {
+		return names;
+	}
+}
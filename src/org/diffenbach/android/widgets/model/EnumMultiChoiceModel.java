@@ -0,0 +1,325 @@
+package org.diffenbach.android.widgets.model;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.diffenbach.android.widgets.utils.BitMasks;
+
+/**
+ * The state of a choice of any number of an enum's constants, without any Views:
+ * which constants are checked, which are visible, and the listeners.
+ * @author TP Diffenbach
+ *
+ * @param <T> An Enum class (<T extends Enum<T>>)
+ *
+ * The multi-select counterpart of EnumChoiceModel.
+ * The checked constants are kept as a mask of ordinals (see BitMasks) rather
+ * than as an EnumSet, so checking, querying and notifying allocate nothing.
+ * Like EnumChoiceModel, it has no android dependencies and is not thread-safe.
+ */
+public class EnumMultiChoiceModel<T extends Enum<T>> {
+
+	/**
+	 * Told when constants are checked or unchecked, unless silently.
+	 * The masks are owned by the model and reused; read them, but don't keep them.
+	 * A listener may change the model: that change is delivered to every listener
+	 * before this one finishes, and the masks this one was passed are left as they were.
+	 */
+	public interface Listener<T extends Enum<T>> {
+		void onSelectionChanged(EnumMultiChoiceModel<T> model, long[] added, long[] removed);
+	}
+
+	/**
+	 * Told of every change to a model: checked or visibility, silent or not.
+	 */
+	public interface Observer<T extends Enum<T>> {
+		void onModelChanged(EnumMultiChoiceModel<T> model);
+	}
+
+	private final Class<T> enumClass;
+	private final T[] enumConstants;
+	// masks of ordinals, see BitMasks
+	private final long[] checkedMask;
+	private final long[] visibleMask;
+	// reused to compute and report changes, so changes don't allocate
+	private final long[] previous;
+	// by how deeply commit is nested in listeners changing the model, so a nested change
+	// doesn't overwrite the masks still being delivered; grown only the first time a depth is reached
+	private final List<long[]> addedByDepth = new ArrayList<long[]>();
+	private final List<long[]> removedByDepth = new ArrayList<long[]>();
+	private int depth;
+	private final List<Listener<T>> listeners = new ArrayList<Listener<T>>();
+	private final List<Observer<T>> observers = new ArrayList<Observer<T>>();
+
+	/**
+	 * Makes a model with all constants visible and none checked.
+	 * @param enumClass
+	 */
+	public EnumMultiChoiceModel(Class<T> enumClass) {
+		this.enumClass = enumClass;
+		this.enumConstants = EnumMetadata.of(enumClass).sharedValues();
+		int size = enumConstants.length;
+		this.checkedMask = BitMasks.newMask(size);
+		this.visibleMask = BitMasks.setAll(BitMasks.newMask(size), size);
+		this.previous = BitMasks.newMask(size);
+		addedByDepth.add(BitMasks.newMask(size));
+		removedByDepth.add(BitMasks.newMask(size));
+	}
+
+	public boolean isChecked(T value) {
+		return BitMasks.get(checkedMask, value.ordinal());
+	}
+
+	public boolean isChecked(int ordinal) {
+		return BitMasks.get(checkedMask, ordinal);
+	}
+
+	/**
+	 * @return the number of checked constants
+	 */
+	public int getCheckedCount() {
+		return BitMasks.cardinality(checkedMask);
+	}
+
+	/**
+	 * Copies the mask of checked ordinals into out.
+	 * @param out a mask at least as large as values().length
+	 * @return out, for chaining
+	 */
+	public long[] getCheckedMask(long[] out) {
+		return BitMasks.copy(checkedMask, out);
+	}
+
+	/**
+	 * Returns the checked constants as a new EnumSet.
+	 * This allocates; prefer isChecked or getCheckedMask where it matters.
+	 * @return the checked constants
+	 */
+	public EnumSet<T> getChecked() {
+		EnumSet<T> ret = EnumSet.noneOf(enumClass);
+		for( int ordinal = BitMasks.nextSetBit(checkedMask, 0); ordinal >= 0; ordinal = BitMasks.nextSetBit(checkedMask, ordinal + 1)) {
+			ret.add(enumConstants[ordinal]);
+		}
+		return ret;
+	}
+
+	public EnumMultiChoiceModel<T> setChecked(T value, boolean checked) {
+		begin();
+		BitMasks.set(checkedMask, value.ordinal(), checked);
+		return commit(true);
+	}
+
+	public EnumMultiChoiceModel<T> toggle(T value) {
+		return setChecked(value, ! isChecked(value));
+	}
+
+	/**
+	 * Checks all the constants in the set, leaving others as they are.
+	 * Iterating an EnumSet allocates an iterator; checkAll(long[]) does not.
+	 * @param values
+	 * @return this, for chaining
+	 */
+	public EnumMultiChoiceModel<T> checkAll(EnumSet<T> values) {
+		begin();
+		for( T value : values) {
+			BitMasks.set(checkedMask, value.ordinal());
+		}
+		return commit(true);
+	}
+
+	/**
+	 * Checks all the ordinals in the mask, leaving others as they are.
+	 * @param mask
+	 * @return this, for chaining
+	 */
+	public EnumMultiChoiceModel<T> checkAll(long[] mask) {
+		begin();
+		BitMasks.or(checkedMask, mask);
+		return commit(true);
+	}
+
+	/**
+	 * Unchecks all the constants not in the set.
+	 * @param values
+	 * @return this, for chaining
+	 */
+	public EnumMultiChoiceModel<T> retain(EnumSet<T> values) {
+		begin();
+		for( int ordinal = BitMasks.nextSetBit(previous, 0); ordinal >= 0; ordinal = BitMasks.nextSetBit(previous, ordinal + 1)) {
+			if( ! values.contains(enumConstants[ordinal])) {
+				BitMasks.clear(checkedMask, ordinal);
+			}
+		}
+		return commit(true);
+	}
+
+	/**
+	 * Unchecks all the ordinals not in the mask.
+	 * @param mask
+	 * @return this, for chaining
+	 */
+	public EnumMultiChoiceModel<T> retain(long[] mask) {
+		begin();
+		BitMasks.and(checkedMask, mask);
+		return commit(true);
+	}
+
+	/**
+	 * Toggles all the ordinals in the mask.
+	 * @param mask
+	 * @return this, for chaining
+	 */
+	public EnumMultiChoiceModel<T> toggle(long[] mask) {
+		begin();
+		BitMasks.xor(checkedMask, mask, checkedMask);
+		return commit(true);
+	}
+
+	public EnumMultiChoiceModel<T> clear() {
+		begin();
+		BitMasks.clearAll(checkedMask);
+		return commit(true);
+	}
+
+	/**
+	 * Checks exactly the ordinals in the mask, telling observers but not listeners,
+	 * as on a restore from bundle.
+	 * @param mask
+	 * @return this, for chaining
+	 */
+	public EnumMultiChoiceModel<T> setCheckedSilently(long[] mask) {
+		begin();
+		BitMasks.copy(mask, checkedMask);
+		return commit(false);
+	}
+
+	public boolean isVisible(int ordinal) {
+		return BitMasks.get(visibleMask, ordinal);
+	}
+
+	public long[] getVisibleMask(long[] out) {
+		return BitMasks.copy(visibleMask, out);
+	}
+
+	/**
+	 * Shows only enum constants that pass the filter.
+	 * Hidden constants stay checked.
+	 * @param pred
+	 * @return this, for chaining
+	 */
+	public EnumMultiChoiceModel<T> filter(EnumChoiceModel.DisplayPredicate<T> pred) {
+		boolean changed = false;
+		for( T ec : enumConstants) {
+			boolean visible = pred.apply(ec);
+			if( BitMasks.get(visibleMask, ec.ordinal()) != visible) {
+				BitMasks.set(visibleMask, ec.ordinal(), visible);
+				changed = true;
+			}
+		}
+		if( changed) {
+			notifyObservers();
+		}
+		return this;
+	}
+
+	public EnumMultiChoiceModel<T> setVisible(T value, boolean visible) {
+		if( BitMasks.get(visibleMask, value.ordinal()) != visible) {
+			BitMasks.set(visibleMask, value.ordinal(), visible);
+			notifyObservers();
+		}
+		return this;
+	}
+
+	/**
+	 * Returns a mask of the constants in the set.
+	 * @param values
+	 * @param out a mask at least as large as values().length
+	 * @return out, for chaining
+	 */
+	public long[] maskOf(EnumSet<T> values, long[] out) {
+		BitMasks.clearAll(out);
+		for( T value : values) {
+			BitMasks.set(out, value.ordinal());
+		}
+		return out;
+	}
+
+	/**
+	 * @return a copy of the enum constants
+	 */
+	public T[] values() {
+		return enumConstants.clone();
+	}
+
+	public int size() {
+		return enumConstants.length;
+	}
+
+	public Class<T> getEnumClass() {
+		return enumClass;
+	}
+
+	public EnumMultiChoiceModel<T> addListener(Listener<T> listener) {
+		listeners.add(listener);
+		return this;
+	}
+
+	public EnumMultiChoiceModel<T> removeListener(Listener<T> listener) {
+		listeners.remove(listener);
+		return this;
+	}
+
+	public EnumMultiChoiceModel<T> addObserver(Observer<T> observer) {
+		observers.add(observer);
+		return this;
+	}
+
+	public EnumMultiChoiceModel<T> removeObserver(Observer<T> observer) {
+		observers.remove(observer);
+		return this;
+	}
+
+	protected void notifyObservers() {
+		for( int i = 0; i < observers.size(); ++i) {
+			observers.get(i).onModelChanged(this);
+		}
+	}
+
+	// saves the checked mask, so commit can tell what changed
+	private void begin() {
+		BitMasks.copy(checkedMask, previous);
+	}
+
+	private EnumMultiChoiceModel<T> commit(boolean notifyListeners) {
+		if( depth == addedByDepth.size()) {
+			addedByDepth.add(BitMasks.newMask(enumConstants.length));
+			removedByDepth.add(BitMasks.newMask(enumConstants.length));
+		}
+		long[] added = addedByDepth.get(depth);
+		long[] removed = removedByDepth.get(depth);
+		BitMasks.andNot(BitMasks.copy(checkedMask, added), previous);
+		BitMasks.andNot(BitMasks.copy(previous, removed), checkedMask);
+		if( BitMasks.isEmpty(added) && BitMasks.isEmpty(removed)) {
+			return this;
+		}
+		++depth;
+		try {
+			notifyObservers();
+			if( notifyListeners) {
+				// by index, so a listener may add another without a ConcurrentModificationException
+				for( int i = 0; i < listeners.size(); ++i) {
+					listeners.get(i).onSelectionChanged(this, added, removed);
+				}
+			}
+		} finally {
+			--depth;
+		}
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "EnumMultiChoiceModel " + getChecked() + " of " + enumClass.getName();
+	}
+}
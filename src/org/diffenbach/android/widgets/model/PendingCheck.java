@@ -0,0 +1,51 @@
+package org.diffenbach.android.widgets.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The latest check posted to an EnumChoiceModel from any thread, until it's applied on the model's thread.
+ * @author TP Diffenbach
+ *
+ * Lock-free: post replaces whatever is pending, and only the post that finds nothing pending
+ * returns true, telling its caller to schedule applyTo on the model's thread. So a burst of posts
+ * schedules one apply, which applies just the latest, silently or not as that post asked;
+ * and a post made after an apply has taken the pending value schedules another, so the last post
+ * is never lost. See org.diffenbach.android.widgets.ui.EnumRadioGroup.postCheck.
+ */
+public final class PendingCheck {
+
+	private static final int NONE = -1;
+
+	// the latest post not yet applied, as ordinal << 1 | silent, or NONE
+	private final AtomicInteger pending = new AtomicInteger(NONE);
+
+	/**
+	 * Posts a check; may be called from any thread.
+	 * @param ordinal the ordinal to check
+	 * @param silent true to check without calling listeners, as setCheckedSilently
+	 * @return true if the caller must schedule applyTo, as nothing was pending
+	 */
+	public boolean post(int ordinal, boolean silent) {
+		return pending.getAndSet(ordinal << 1 | (silent ? 1 : 0)) == NONE;
+	}
+
+	public boolean isPending() {
+		return pending.get() != NONE;
+	}
+
+	/**
+	 * Applies the latest post, if there is one, to the model. Call on the model's thread.
+	 * @param model
+	 */
+	public <T extends Enum<T>> void applyTo(EnumChoiceModel<T> model) {
+		int posted = pending.getAndSet(NONE);
+		if( posted != NONE) {
+			T value = model.getValue(posted >>> 1);
+			if( (posted & 1) != 0) {
+				model.setCheckedSilently(value);
+			} else {
+				model.check(value);
+			}
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package org.diffenbach.android.widgets.model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A stream of an EnumChoiceModel's checked values, for any number of subscribers.
+ * @author TP Diffenbach
+ *
+ * @param <T> An Enum class (<T extends Enum<T>>)
+ *
+ * Shaped like java.util.concurrent.Flow's Publisher, which android doesn't have:
+ * a Subscriber is given a Subscription, and gets values only as it requests them.
+ * A subscriber that hasn't requested one when the value changes isn't queued up a backlog;
+ * it gets just the latest value when it next requests. A new subscriber's first value is
+ * the current one.
+ *
+ * However many subscribers there are, the publisher observes its model through one Observer,
+ * and only while started. Stopping pauses the subscribers: they get nothing until the publisher
+ * is started again, then the latest value if it changed meanwhile. Only complete() ends them.
+ * EnumRadioGroup.getSelections() starts its publisher when the group is attached to a window,
+ * stops it when detached (as in a ViewPager or on the back stack), and completes it when detached
+ * because its Activity is finishing.
+ *
+ * A Subscription refers to its publisher only weakly, and not at all once cancelled or completed,
+ * so a subscription kept past its group's life (say, in a ViewModel, across a rotation)
+ * doesn't keep the publisher, its model, the group or the group's Activity alive.
+ *
+ * Like the models, not thread-safe: subscribe, request and cancel on the main thread.
+ */
+public class SelectionPublisher<T extends Enum<T>> {
+
+	public interface Subscriber<T> {
+		/**
+		 * Called first, before any other method.
+		 * @param subscription use it to request values, or cancel
+		 */
+		void onSubscribe(Subscription subscription);
+
+		void onNext(T value);
+
+		/**
+		 * Called if the subscriber breaks the protocol, e.g. requests fewer than one value.
+		 * No more methods are called after this.
+		 */
+		void onError(Throwable t);
+
+		/**
+		 * Called when the publisher is completed, by complete(); not when it's stopped,
+		 * which only pauses. No more methods are called after this.
+		 */
+		void onComplete();
+	}
+
+	public interface Subscription {
+		/**
+		 * Requests up to n more values; Long.MAX_VALUE for all of them.
+		 * @param n
+		 */
+		void request(long n);
+
+		/**
+		 * Stops the values. May be called more than once, or from onNext.
+		 */
+		void cancel();
+	}
+
+	private static final String EXC_MSG_BAD_REQUEST = "Requested %d values; must request at least 1";
+
+	private EnumChoiceModel<T> model;
+	private final List<SubscriptionImpl<T>> subscriptions = new ArrayList<SubscriptionImpl<T>>();
+	private boolean started;
+	// the ordinal last published, so a visibility-only change isn't published,
+	// and so a restart publishes only if it changed while stopped
+	private int publishedOrdinal;
+	// what subscriptions refer to, so they don't keep us alive
+	private final WeakReference<SelectionPublisher<T>> self = new WeakReference<SelectionPublisher<T>>(this);
+
+	public SelectionPublisher(EnumChoiceModel<T> model) {
+		this.model = model;
+		this.publishedOrdinal = model.getCheckedOrdinal();
+	}
+
+	/**
+	 * Subscribes; the subscriber's onSubscribe is called now if the publisher
+	 * is started, otherwise when it's next started.
+	 * @param subscriber
+	 */
+	public void subscribe(Subscriber<? super T> subscriber) {
+		SubscriptionImpl<T> subscription = new SubscriptionImpl<T>(self, subscriber);
+		subscriptions.add(subscription);
+		if( started) {
+			subscription.start();
+		}
+	}
+
+	/**
+	 * Starts, or resumes, observing the model: paused subscribers get the current value
+	 * if it changed while stopped, and subscribers waiting to start are started.
+	 */
+	public void start() {
+		if( started) {
+			return;
+		}
+		started = true;
+		model.addObserver(observer);
+		// the paused ones first, so the new ones, which start with the current value, don't get it twice
+		publish();
+		for( int i = 0; i < subscriptions.size(); ++i) {
+			subscriptions.get(i).start();
+		}
+	}
+
+	/**
+	 * Stops observing the model, pausing the subscribers until the next start.
+	 */
+	public void stop() {
+		if( ! started) {
+			return;
+		}
+		started = false;
+		model.removeObserver(observer);
+	}
+
+	/**
+	 * Stops, and completes and drops all the subscribers, for good; later subscribers
+	 * wait for the next start.
+	 */
+	public void complete() {
+		stop();
+		// copied, since a subscriber may subscribe again from onComplete
+		List<SubscriptionImpl<T>> completed = new ArrayList<SubscriptionImpl<T>>(subscriptions);
+		subscriptions.clear();
+		for( SubscriptionImpl<T> subscription : completed) {
+			subscription.complete();
+		}
+	}
+
+	public boolean isStarted() {
+		return started;
+	}
+
+	public int getSubscriberCount() {
+		return subscriptions.size();
+	}
+
+	/**
+	 * Publishes another model's values from now on, as when a group's model is replaced.
+	 * @param model
+	 */
+	public void setModel(EnumChoiceModel<T> model) {
+		if( started) {
+			this.model.removeObserver(observer);
+			model.addObserver(observer);
+		}
+		this.model = model;
+		publish();
+	}
+
+	private void publish() {
+		if( ! started || model.getCheckedOrdinal() == publishedOrdinal) {
+			return;
+		}
+		publishedOrdinal = model.getCheckedOrdinal();
+		T value = model.getCheckedValue();
+		// by index, backwards, so a subscriber may cancel, or subscribe another
+		// (which starts with the current value anyway), without upsetting the loop
+		for( int i = subscriptions.size() - 1; i >= 0; --i) {
+			if( i < subscriptions.size()) {
+				subscriptions.get(i).offer(value);
+			}
+		}
+	}
+
+	// the one observer, however many subscribers
+	private final EnumChoiceModel.Observer<T> observer = new EnumChoiceModel.Observer<T>() {
+		@Override
+		public void onModelChanged(EnumChoiceModel<T> changed) {
+			publish();
+		}
+	};
+
+	// static, and refers to the publisher weakly, and not at all once done, so it keeps nothing alive
+	private static final class SubscriptionImpl<T extends Enum<T>> implements Subscription {
+		private WeakReference<SelectionPublisher<T>> publisher;
+		private Subscriber<? super T> subscriber;
+		private long demand;
+		// the latest value not yet delivered, or null; older ones are simply replaced
+		private T latest;
+		private boolean started;
+		private boolean delivering;
+
+		private SubscriptionImpl(WeakReference<SelectionPublisher<T>> publisher, Subscriber<? super T> subscriber) {
+			this.publisher = publisher;
+			this.subscriber = subscriber;
+		}
+
+		// only called by the publisher, so it's there
+		private void start() {
+			if( started) {
+				return;
+			}
+			started = true;
+			latest = publisher.get().model.getCheckedValue();
+			subscriber.onSubscribe(this);
+		}
+
+		private void offer(T value) {
+			latest = value;
+			deliver();
+		}
+
+		@Override
+		public void request(long n) {
+			if( subscriber == null) {
+				return;
+			}
+			if( n < 1) {
+				Subscriber<? super T> s = subscriber;
+				cancel();
+				s.onError(new IllegalArgumentException(String.format(EXC_MSG_BAD_REQUEST, n)));
+				return;
+			}
+			demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+			deliver();
+		}
+
+		private void deliver() {
+			// a request from onNext just adds demand; the loop below delivers it
+			if( delivering) {
+				return;
+			}
+			delivering = true;
+			try {
+				while( subscriber != null && latest != null && demand > 0) {
+					T value = latest;
+					latest = null;
+					if( demand != Long.MAX_VALUE) {
+						--demand;
+					}
+					subscriber.onNext(value);
+				}
+			} finally {
+				delivering = false;
+			}
+		}
+
+		@Override
+		public void cancel() {
+			SelectionPublisher<T> p = publisher != null ? publisher.get() : null;
+			if( p != null) {
+				p.subscriptions.remove(this);
+			}
+			publisher = null;
+			subscriber = null;
+			latest = null;
+		}
+
+		private void complete() {
+			Subscriber<? super T> s = subscriber;
+			publisher = null;
+			subscriber = null;
+			latest = null;
+			if( s != null && started) {
+				s.onComplete();
+			}
+		}
+	}
+}
@@ -0,0 +1,8 @@
+/**
+ * 
+ */
+/**
+ * @author TP Diffenbach
+ * View-free models of the widgets' state, with no android dependencies
+ */
+package org.diffenbach.android.widgets.model;
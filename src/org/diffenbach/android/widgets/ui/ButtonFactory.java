@@ -0,0 +1,113 @@
+package org.diffenbach.android.widgets.ui;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.diffenbach.android.widgets.R;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+import android.widget.CheckBox;
+import android.widget.CompoundButton;
+import android.widget.LinearLayout;
+import android.widget.RadioButton;
+import android.widget.RadioGroup;
+
+/**
+ * Makes the groups' buttons, in code where that's the same as inflating them.
+ * @author TP Diffenbach
+ *
+ * Inflating a button layout per button, just to get its LayoutParams, means an XML parse
+ * and attribute resolution per button. The bundled horizontal_, vertical_ and wrapped_ layouts
+ * (and the _clickable_when_checked and check box variants) set nothing but their LayoutParams,
+ * and those don't depend on the configuration, so for them the layout is inflated once per process,
+ * as a template, and every other button is constructed with a copy of the template's LayoutParams.
+ * A View constructed with no attributes gets the same default style as one inflated with none.
+ *
+ * Any other layout, including the slim ones, which set a style, is inflated every time.
+ * So is every layout if the inflater has a factory (other than an EnumGroupInflaterFactory
+ * with no delegate): a factory may make something else of a RadioButton or CheckBox tag,
+ * as AppCompat makes a tinted AppCompatRadioButton, and every button must be what it makes.
+ */
+final class ButtonFactory {
+
+	private static final int RADIO_BUTTON = 1;
+	private static final int CLICKABLE_WHEN_CHECKED = 2;
+	private static final int CHECK_BOX = 3;
+
+	// by bundled layout resource id, the button it holds
+	private static final Map<Integer, Integer> kinds = new HashMap<Integer, Integer>();
+	// by bundled layout resource id, the LayoutParams of its one inflation
+	private static final Map<Integer, LinearLayout.LayoutParams> templates = new HashMap<Integer, LinearLayout.LayoutParams>();
+
+	static {
+		kinds.put(R.layout.horizontal_radio_button, RADIO_BUTTON);
+		kinds.put(R.layout.vertical_radio_button, RADIO_BUTTON);
+		kinds.put(R.layout.wrapped_radio_button, RADIO_BUTTON);
+		kinds.put(R.layout.horizontal_radio_button_clickable_when_checked, CLICKABLE_WHEN_CHECKED);
+		kinds.put(R.layout.vertical_radio_button_clickable_when_checked, CLICKABLE_WHEN_CHECKED);
+		kinds.put(R.layout.wrapped_radio_button_clickable_when_checked, CLICKABLE_WHEN_CHECKED);
+		kinds.put(R.layout.horizontal_check_box, CHECK_BOX);
+		kinds.put(R.layout.vertical_check_box, CHECK_BOX);
+		kinds.put(R.layout.wrapped_check_box, CHECK_BOX);
+	}
+
+	private ButtonFactory() {
+	}
+
+	/**
+	 * Makes a button as if inflated from the layout into the parent, but doesn't add it.
+	 * @param inflater
+	 * @param layout the button's layout resource id
+	 * @param parent the group it's for
+	 * @return the button
+	 */
+	static CompoundButton make(LayoutInflater inflater, int layout, ViewGroup parent) {
+		Integer kind = canConstruct(inflater) ? kinds.get(layout) : null;
+		LinearLayout.LayoutParams template = null;
+		if( kind != null) {
+			synchronized (templates) {
+				template = templates.get(layout);
+			}
+		}
+		if( template == null) {
+			// annoyingly, to get layoutparams, we need to inflate this way
+			CompoundButton button = (CompoundButton) inflater.inflate(layout, parent, false);
+			if( kind != null && button.getLayoutParams() instanceof LinearLayout.LayoutParams) {
+				// a copy, since the button's own may be changed by whoever owns it
+				LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams) button.getLayoutParams();
+				synchronized (templates) {
+					templates.put(layout, new LinearLayout.LayoutParams(lp.width, lp.height, lp.weight));
+				}
+			}
+			return button;
+		}
+
+		Context context = inflater.getContext();
+		CompoundButton button;
+		switch( kind) {
+		case RADIO_BUTTON:
+			button = new RadioButton(context);
+			break;
+		case CLICKABLE_WHEN_CHECKED:
+			button = new RadioButtonClickableWhenChecked(context);
+			break;
+		default:
+			button = new CheckBox(context);
+			break;
+		}
+		// a copy, of the type the parent would make, so addView needn't convert it
+		button.setLayoutParams(parent instanceof RadioGroup
+				? new RadioGroup.LayoutParams(template.width, template.height, template.weight)
+				: new LinearLayout.LayoutParams(template.width, template.height, template.weight));
+		return button;
+	}
+
+	// true if inflating a RadioButton or CheckBox tag makes just that, as constructing it does
+	private static boolean canConstruct(LayoutInflater inflater) {
+		LayoutInflater.Factory factory = inflater.getFactory();
+		return factory == null
+				|| factory instanceof EnumGroupInflaterFactory && ! ((EnumGroupInflaterFactory) factory).hasDelegate();
+	}
+}
@@ -0,0 +1,67 @@
+package org.diffenbach.android.widgets.ui;
+
+import org.diffenbach.android.widgets.utils.BitMasks;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * The parts of a choice group that don't depend on what its choices are keyed by,
+ * shared by EnumRadioGroup, EnumCheckBoxGroup and IndexedChoiceGroup.
+ * @author TP Diffenbach
+ *
+ * Each group generates its buttons first, with consecutive ids (see ViewIdGenerator),
+ * so a button's key is its id less the first id, and keeps which buttons are shown
+ * as a mask (see BitMasks), so only the buttons that change are touched.
+ */
+final class ChoiceGroups {
+
+	private ChoiceGroups() {
+	}
+
+	/**
+	 * Fixes the position of any XML children, for onFinishInflate:
+	 * moves XML children to precede the generated buttons, until a dummy is seen,
+	 * and removes all dummies.
+	 * @param group
+	 * @param generatedChildCount the number of children the group generated, which come first
+	 * @param dummyClass the class of XML dummies
+	 * @return the number of XML children now preceding the generated buttons
+	 */
+	static int placeXmlChildren(ViewGroup group, int generatedChildCount, Class<? extends View> dummyClass) {
+		int childCount = group.getChildCount();
+		boolean foundDummy = false;
+		int leading = 0;
+		for( int xmlChild = generatedChildCount; xmlChild < childCount; ++xmlChild) {
+			View child = group.getChildAt(xmlChild);
+			if(dummyClass.isInstance(child)) {
+				group.removeView(child);
+				--xmlChild;
+				--childCount;
+				foundDummy = true;
+			} else if(!foundDummy) {
+				group.removeView(child);
+				group.addView(child, xmlChild - generatedChildCount);
+				++leading;
+			}
+		}
+		return leading;
+	}
+
+	/**
+	 * Shows exactly the buttons in shown, touching only those that differ from rendered.
+	 * @param buttons by key
+	 * @param shown the mask of keys to show
+	 * @param rendered the mask of keys shown now
+	 */
+	static void showChanged(View[] buttons, long[] shown, long[] rendered) {
+		for( int word = 0; word < shown.length; ++word) {
+			long changed = shown[word] ^ rendered[word];
+			while( changed != 0L) {
+				int key = (word << 6) + Long.numberOfTrailingZeros(changed);
+				changed &= changed - 1;
+				buttons[key].setVisibility(BitMasks.get(shown, key) ? View.VISIBLE : View.GONE);
+			}
+		}
+	}
+}
@@ -0,0 +1,405 @@
+package org.diffenbach.android.widgets.ui;
+
+import java.util.EnumSet;
+
+import org.diffenbach.android.widgets.R;
+import org.diffenbach.android.widgets.model.EnumChoiceModel.DisplayPredicate;
+import org.diffenbach.android.widgets.model.EnumMetadata;
+import org.diffenbach.android.widgets.model.EnumMultiChoiceModel;
+import org.diffenbach.android.widgets.utils.AtomicIntViewIdGenerator;
+import org.diffenbach.android.widgets.utils.BitMasks;
+import org.diffenbach.android.widgets.utils.ViewIdGenerator;
+
+import android.app.Activity;
+import android.content.Context;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.CompoundButton;
+import android.widget.LinearLayout;
+
+
+/**
+ * A class to show Enum constants as check boxes, any number of which may be checked.
+ * @author TP Diffenbach
+ *
+ * @param <T> An Enum class (<T extends Enum<T>>)
+ *
+ * The multi-select counterpart of EnumRadioGroup. It uses the same XML attributes
+ * (enumClassName, radioButtonNames and radioButtonLayout, which here should be a CheckBox layout),
+ * the same consecutive ordinal -> id mapping, and the same DisplayPredicates.
+ *
+ * The checked constants are held by an EnumMultiChoiceModel as a mask of ordinals,
+ * so isChecked and the change listeners allocate nothing.
+ */
+
+public class EnumCheckBoxGroup<T extends Enum<T>> extends LinearLayout {
+
+	/**
+	 * Wraps findById in a cast
+	 * @param a an Activity
+	 * @param id an id of an EnumCheckBoxGroup
+	 * @return a View that we hope is an EnumCheckBoxGroup, or throw a ClassCastException
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E extends Enum<E>> EnumCheckBoxGroup<E> findByIdE( Activity a, int id) {
+		return (EnumCheckBoxGroup<E>) a.findViewById(id);
+	}
+
+	/**
+	 * Wraps findById in a cast
+	 * @param v a View
+	 * @param id an id of an EnumCheckBoxGroup
+	 * @return a child View that we hope is an EnumCheckBoxGroup, or throw ClassCastException
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E extends Enum<E>> EnumCheckBoxGroup<E> findByIdE( View v, int id) {
+		return (EnumCheckBoxGroup<E>) v.findViewById(id);
+	}
+
+	/**
+	 * A test for XML dummies.
+	 * @param v a View
+	 * @return true if the View is an XML dummy which we will remove.
+	 */
+	public static boolean isDummy(View v) {
+		return v instanceof CompoundButton;
+	}
+
+	private static final String CLASS_S_NOT_FOUND = "Class \'%s\' not found ";
+	private static final String EXC_MSG_UNEQUAL_NAMES = "%d names for %d enum constants; must be equal";
+
+	// non-final so we can replace it (via reflection) during testing
+	private static ViewIdGenerator viewIdGenerator = AtomicIntViewIdGenerator.INSTANCE;
+
+	private EnumMultiChoiceModel<T> model;
+	private T[] enumConstants;
+	// the id of the CheckBox with ordinal() == 0
+	// all other CheckBox ids are consecutive increasing
+	protected int idOffset;
+	// our CheckBoxes, by ordinal
+	private CompoundButton[] boxes;
+	// masks of ordinals, see BitMasks: what the children show now, so we only touch the ones that change
+	private long[] renderedChecked;
+	private long[] renderedVisible;
+	private long[] scratchMask;
+	// ordinals whose label is empty; their boxes are hidden whatever the model says,
+	// and kept apart from the model's mask so a filter doesn't show them again
+	private long[] labelHiddenMask;
+	// reused by toggle(EnumSet), so a bulk toggle doesn't allocate a mask
+	private long[] toggleMask;
+	// non-zero while we're bringing the CheckBoxes in line with the model, so we don't echo it back
+	private int renderDepth;
+
+	/**
+	 * Ctor that takes:
+	 * @param context the EnumCheckBoxGroup's context
+	 * @param enumClass the class of the enum constants to show
+	 * @param cbNames an resource id of an array of strings to use as the check boxes' labels, or -1
+	 * @param cbLayout the layout to use for each check box in the group, or -1
+	 */
+	public EnumCheckBoxGroup(Context context, Class<T> enumClass, int cbNames, int cbLayout) {
+		super(context);
+		setOrientation(VERTICAL);
+		init(context, enumClass, cbNames, cbLayout);
+	}
+
+	/**
+	 * Ctor that uses a default layout and the Enums' toString()s as labels.
+	 * @param context
+	 * @param enumClass
+	 */
+	public EnumCheckBoxGroup(Context context, Class<T> enumClass) {
+		this(context, enumClass, -1, -1);
+	}
+
+	/** Ctor used to inflate an XML representation of an EnumCheckBoxGroup.
+	 *
+	 * @param context
+	 * @param attrs
+	 */
+	@SuppressWarnings("unchecked")
+	public EnumCheckBoxGroup(Context context, AttributeSet attrs) {
+		super(context, attrs);
+
+		if( ! isInEditMode()) {
+			EnumGroupAttributes a = EnumGroupAttributes.of(context, attrs);
+			try {
+				Log.i(getClass().getName(), String.format("Enum Class %s", a.enumClassName));
+				init(context, (Class<T>) Class.forName(a.enumClassName), a.rbNames, a.rbLayout);
+			} catch (ClassNotFoundException e) {
+				// convert to unchecked exception
+				throw new IllegalArgumentException(String.format(CLASS_S_NOT_FOUND, a.enumClassName), e);
+			}
+		}
+	}
+
+	public boolean isChecked(T value) {
+		return model.isChecked(value);
+	}
+
+	/**
+	 * Checks or unchecks the check box of the enum constant, calling listeners if it changes.
+	 * @param value
+	 * @param checked
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumCheckBoxGroup<T>> U setChecked(T value, boolean checked) {
+		model.setChecked(value, checked);
+		return (U) this;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <U extends EnumCheckBoxGroup<T>> U toggle(T value) {
+		model.toggle(value);
+		return (U) this;
+	}
+
+	/**
+	 * Toggles all the enum constants whose ordinals are in the mask, in one change:
+	 * listeners are called once, and only the boxes that change are touched. Allocates nothing.
+	 * @param mask a mask (see BitMasks) of ordinals
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumCheckBoxGroup<T>> U toggle(long[] mask) {
+		model.toggle(mask);
+		return (U) this;
+	}
+
+	/**
+	 * Toggles all the enum constants in the set, in one change, as toggle(long[]) does.
+	 * The mask is reused; only iterating the EnumSet allocates (an iterator).
+	 * @param values
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumCheckBoxGroup<T>> U toggle(EnumSet<T> values) {
+		model.toggle(model.maskOf(values, toggleMask));
+		return (U) this;
+	}
+
+	/**
+	 * Checks all the enum constants in the set, leaving others as they are.
+	 * @param values
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumCheckBoxGroup<T>> U checkAll(EnumSet<T> values) {
+		model.checkAll(values);
+		return (U) this;
+	}
+
+	/**
+	 * Unchecks all the enum constants not in the set.
+	 * @param values
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumCheckBoxGroup<T>> U retain(EnumSet<T> values) {
+		model.retain(values);
+		return (U) this;
+	}
+
+	/**
+	 * Returns the checked enum constants, as a new EnumSet.
+	 * @return the checked enum constants
+	 */
+	public EnumSet<T> getChecked() {
+		return model.getChecked();
+	}
+
+	/**
+	 * Returns the model this group renders.
+	 * @return the model
+	 */
+	public EnumMultiChoiceModel<T> getModel() {
+		return model;
+	}
+
+	/**
+	 * Adds a listener, told which enum constants were checked and unchecked, as masks of ordinals.
+	 * @param listener
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumCheckBoxGroup<T>> U addOnSelectionChangedListener(EnumMultiChoiceModel.Listener<T> listener) {
+		model.addListener(listener);
+		return (U) this;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <U extends EnumCheckBoxGroup<T>> U removeOnSelectionChangedListener(EnumMultiChoiceModel.Listener<T> listener) {
+		model.removeListener(listener);
+		return (U) this;
+	}
+
+	/**
+	 * Displays only check boxes corresponding to enum constants that pass the filter
+	 * @param pred a DisplayPredicate for the Enum<T>s; EnumRadioGroup's factory functions make these.
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumCheckBoxGroup<T>> U filter( DisplayPredicate<T> pred) {
+		model.filter(pred);
+		return (U) this;
+	}
+
+	/**
+	 * Returns the id of the check box in the group corresponding to the enum constant passed.
+	 * @param enumConstant
+	 * @return id of the check box
+	 */
+	public int getViewIdForEnum(T enumConstant) {
+		return enumConstant.ordinal() + idOffset;
+	}
+
+	/**
+	 * return the check box corresponding to the passed-in enum constant.
+	 * @param enumConstant
+	 * @return
+	 */
+	public CompoundButton findViewByEnum(T enumConstant) {
+		return boxes[enumConstant.ordinal()];
+	}
+
+	public T[] values() {
+		return model.values();
+	}
+
+	/**
+	 * Protected methods
+	 */
+
+	/**
+	 * The init called from the all ctors. For each enum constant, make a check box.
+	 * @param context
+	 * @param enumClass the enum's class
+	 * @param cbNames resource id of human-readable names of enums, or -1
+	 * @param cbLayout resource id of the layout of a check box, or -1
+	 */
+	protected void init(Context context, Class<T> enumClass, int cbNames, int cbLayout) {
+		this.model = new EnumMultiChoiceModel<T>(enumClass);
+		this.enumConstants = EnumMetadata.of(enumClass).sharedValues();
+		this.idOffset = viewIdGenerator.generateViewIds(enumConstants.length);
+
+		if (cbLayout == -1) {
+			cbLayout = R.layout.wrapped_check_box;
+		}
+
+		String[] names = cbNames != -1 ? context.getResources().getStringArray(cbNames)
+				: getEnumNames(enumConstants);
+
+		if(names.length != enumConstants.length) {
+			throw new IllegalArgumentException(
+					String.format(EXC_MSG_UNEQUAL_NAMES, names.length, enumConstants.length));
+		}
+
+		this.boxes = new CompoundButton[enumConstants.length];
+		this.renderedChecked = BitMasks.newMask(enumConstants.length);
+		this.scratchMask = BitMasks.newMask(enumConstants.length);
+		this.labelHiddenMask = BitMasks.newMask(enumConstants.length);
+		this.toggleMask = BitMasks.newMask(enumConstants.length);
+
+		LayoutInflater inflater = LayoutInflater.from(context);
+
+		for( int offset = 0; offset < enumConstants.length; ++offset) {
+			// inflated, or for the bundled layouts, made in code; see ButtonFactory
+			CompoundButton cb = ButtonFactory.make(inflater, cbLayout, this);
+			SharedDrawables.applyButtonDrawable(cb, cbLayout);
+			cb.setId(idOffset + offset);
+			boxes[offset] = cb;
+
+			String name = names[offset];
+			if(name.length() > 0 ) cb.setText(name);
+			else {
+				cb.setVisibility(View.GONE); //poor XML-man's filter
+				BitMasks.set(labelHiddenMask, offset);
+			}
+			cb.setOnCheckedChangeListener(boxListener);
+			addView(cb);
+		}
+		this.renderedVisible = BitMasks.andNot(model.getVisibleMask(BitMasks.newMask(enumConstants.length)), labelHiddenMask);
+		model.addObserver(modelObserver);
+	}
+
+	/**
+	 * Convenience function to produce a Enum's names if the caller doesn't pass us a list of names.
+	 * @param enumConstants
+	 * @return an array of [toString called on each enum constant], shared by all groups of the enum; don't change it
+	 */
+	protected String[] getEnumNames(T[] enumConstants) {
+		return EnumMetadata.of(enumConstants[0].getDeclaringClass()).sharedNames();
+	}
+
+	/**
+	 * Brings the check boxes in line with the model, touching only those that differ.
+	 * Boxes with empty labels stay hidden whatever the model's visibility.
+	 */
+	protected void render() {
+		long[] checked = model.getCheckedMask(scratchMask);
+		++renderDepth;
+		try {
+			for( int word = 0; word < checked.length; ++word) {
+				long changed = checked[word] ^ renderedChecked[word];
+				while( changed != 0L) {
+					int ordinal = (word << 6) + Long.numberOfTrailingZeros(changed);
+					changed &= changed - 1;
+					boxes[ordinal].setChecked(BitMasks.get(checked, ordinal));
+				}
+			}
+		} finally {
+			--renderDepth;
+		}
+		scratchMask = renderedChecked;
+		renderedChecked = checked;
+
+		long[] visible = BitMasks.andNot(model.getVisibleMask(scratchMask), labelHiddenMask);
+		ChoiceGroups.showChanged(boxes, visible, renderedVisible);
+		scratchMask = renderedVisible;
+		renderedVisible = visible;
+	}
+
+	/**
+	 * we need to fix the position of any XML children
+	 * we move any XML children to precede before our check boxes
+	 * until we see a dummy
+	 * and we remove all dummies
+	 */
+	@Override
+	protected void onFinishInflate() {
+		super.onFinishInflate();
+
+		if( ! isInEditMode()) {
+			ChoiceGroups.placeXmlChildren(this, enumConstants.length, CompoundButton.class);
+		}
+	}
+
+	// one listener for all the check boxes; clicks go to the model
+	private final CompoundButton.OnCheckedChangeListener boxListener = new CompoundButton.OnCheckedChangeListener() {
+		@Override
+		public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+			if( renderDepth == 0) {
+				int ordinal = buttonView.getId() - idOffset;
+				BitMasks.set(renderedChecked, ordinal, isChecked);
+				model.setChecked(enumConstants[ordinal], isChecked);
+			}
+		}
+	};
+
+	private final EnumMultiChoiceModel.Observer<T> modelObserver = new EnumMultiChoiceModel.Observer<T>() {
+		@Override
+		public void onModelChanged(EnumMultiChoiceModel<T> changed) {
+			render();
+		}
+	};
+}
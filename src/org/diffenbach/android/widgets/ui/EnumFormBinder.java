@@ -0,0 +1,328 @@
+package org.diffenbach.android.widgets.ui;
+
+import org.diffenbach.android.widgets.model.EnumChoiceModel;
+import org.diffenbach.android.widgets.utils.BitMasks;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * Binds many EnumRadioGroups (or their models) to one record of ordinals.
+ * @author TP Diffenbach
+ *
+ * Each group is bound to a slot in a short[] of ordinals. When a group's value changes,
+ * its slot is updated and marked dirty, and the form's listener is told once per frame,
+ * however many groups changed in the meantime: from API 16, by a Choreographer frame callback,
+ * just before the next frame is drawn; before that, on the next turn of the main loop,
+ * which may come more than once a frame.
+ * A silent change (setCheckedSilently, apply, a silent postCheck, a restore) updates the slot
+ * too, so the record always matches the groups, but doesn't mark it dirty; nor does a re-click
+ * (see RadioButtonClickableWhenChecked), which repeats the value without changing it.
+ * A slot bound to a group follows the group to a new model, if setModel replaces it.
+ * There's no per-group listener to write, and no boxing or copying into a POJO.
+ *
+ * The whole form can be loaded from an array of ordinals without calling any listeners;
+ * since that all happens in one pass on the main thread, the groups are laid out once.
+ *
+ * Use on the main thread only.
+ */
+public class EnumFormBinder {
+
+	/**
+	 * Told, at most once per frame, that slots have changed.
+	 */
+	public interface OnFormChangedListener {
+		/**
+		 * @param form the form that changed
+		 * @param dirty a mask of the changed slots (see BitMasks); owned by the form, don't keep it.
+		 * The slots are marked clean after this returns.
+		 */
+		void onFormChanged(EnumFormBinder form, long[] dirty);
+	}
+
+	private static final String EXC_MSG_SLOT_BOUND = "Slot %d is already bound";
+
+	private final short[] ordinals;
+	private final Slot<?>[] slots;
+	private final long[] dirty;
+	// posts the notifier: to the Choreographer from API 16, else to the main loop; made on first use
+	private FrameNotifier frameNotifier;
+	private Handler handler;
+	private OnFormChangedListener listener;
+	private boolean notifyPosted;
+
+	/**
+	 * Makes a form with room for slotCount groups.
+	 * @param slotCount
+	 */
+	public EnumFormBinder(int slotCount) {
+		this(new short[slotCount]);
+	}
+
+	/**
+	 * Makes a form that keeps its ordinals in the array passed; the form's record.
+	 * @param ordinals the array of ordinals, by slot; it's shared, not copied
+	 */
+	public EnumFormBinder(short[] ordinals) {
+		this.ordinals = ordinals;
+		this.slots = new Slot<?>[ordinals.length];
+		this.dirty = BitMasks.newMask(ordinals.length);
+	}
+
+	/**
+	 * Binds a group to a slot. The slot takes the group's current value.
+	 * @param slot
+	 * @param group
+	 * @return this, for chaining
+	 */
+	public <T extends Enum<T>> EnumFormBinder bind(int slot, EnumRadioGroup<T> group) {
+		Slot<T> s = bind(slot, group.getModel(), group);
+		group.addModelReplacedListener(s);
+		return this;
+	}
+
+	/**
+	 * Binds a model to a slot. The slot takes the model's current value.
+	 * @param slot
+	 * @param model
+	 * @return this, for chaining
+	 */
+	public <T extends Enum<T>> EnumFormBinder bind(int slot, EnumChoiceModel<T> model) {
+		bind(slot, model, null);
+		return this;
+	}
+
+	private <T extends Enum<T>> Slot<T> bind(int slot, EnumChoiceModel<T> model, EnumRadioGroup<T> group) {
+		if( slots[slot] != null) {
+			throw new IllegalStateException(String.format(EXC_MSG_SLOT_BOUND, slot));
+		}
+		Slot<T> s = new Slot<T>(slot, group);
+		slots[slot] = s;
+		s.attach(model);
+		return s;
+	}
+
+	/**
+	 * Unbinds whatever is bound to the slot.
+	 * @param slot
+	 * @return this, for chaining
+	 */
+	public EnumFormBinder unbind(int slot) {
+		if( slots[slot] != null) {
+			slots[slot].unbind();
+			slots[slot] = null;
+			BitMasks.clear(dirty, slot);
+		}
+		return this;
+	}
+
+	public EnumFormBinder setOnFormChangedListener(OnFormChangedListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * @return the number of slots
+	 */
+	public int size() {
+		return ordinals.length;
+	}
+
+	/**
+	 * @param slot
+	 * @return the ordinal of the value in the slot
+	 */
+	public int getOrdinal(int slot) {
+		return ordinals[slot];
+	}
+
+	/**
+	 * @param slot
+	 * @return the value of the group bound to the slot
+	 */
+	public Enum<?> getValue(int slot) {
+		return slots[slot].model.getValue(ordinals[slot]);
+	}
+
+	/**
+	 * Returns the form's record of ordinals, by slot. It's live, so don't change it; use load.
+	 * @return the ordinals
+	 */
+	public short[] getOrdinals() {
+		return ordinals;
+	}
+
+	/**
+	 * Copies the ordinals into a byte[], for forms whose enums all have fewer than 128 constants.
+	 * @param out
+	 * @return out, for chaining
+	 */
+	public byte[] copyOrdinals(byte[] out) {
+		for( int slot = 0; slot < ordinals.length; ++slot) {
+			out[slot] = (byte) ordinals[slot];
+		}
+		return out;
+	}
+
+	/**
+	 * Returns true if any slot has changed since the listener was last told.
+	 * @return true if any slot is dirty
+	 */
+	public boolean isDirty() {
+		return ! BitMasks.isEmpty(dirty);
+	}
+
+	public boolean isDirty(int slot) {
+		return BitMasks.get(dirty, slot);
+	}
+
+	/**
+	 * Sets every bound group to the ordinal in its slot, without calling any listeners,
+	 * and marks all slots clean.
+	 * @param values ordinals, by slot
+	 * @return this, for chaining
+	 */
+	public EnumFormBinder load(short[] values) {
+		if( values != ordinals) {
+			System.arraycopy(values, 0, ordinals, 0, ordinals.length);
+		}
+		return loadSlots();
+	}
+
+	/**
+	 * Sets every bound group to the ordinal in its slot, without calling any listeners,
+	 * and marks all slots clean.
+	 * @param values ordinals, by slot
+	 * @return this, for chaining
+	 */
+	public EnumFormBinder load(byte[] values) {
+		for( int slot = 0; slot < ordinals.length; ++slot) {
+			ordinals[slot] = values[slot];
+		}
+		return loadSlots();
+	}
+
+	private EnumFormBinder loadSlots() {
+		for( Slot<?> s : slots) {
+			if( s != null) {
+				s.load();
+			}
+		}
+		BitMasks.clearAll(dirty);
+		return this;
+	}
+
+	private void markDirty(int slot, int ordinal) {
+		ordinals[slot] = (short) ordinal;
+		BitMasks.set(dirty, slot);
+		if( ! notifyPosted) {
+			notifyPosted = true;
+			postNotifier();
+		}
+	}
+
+	private void postNotifier() {
+		if( Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			if( frameNotifier == null) {
+				frameNotifier = new FrameNotifier(notifier);
+			}
+			frameNotifier.post();
+		} else {
+			if( handler == null) {
+				handler = new Handler(Looper.getMainLooper());
+			}
+			handler.post(notifier);
+		}
+	}
+
+	private final Runnable notifier = new Runnable() {
+		@Override
+		public void run() {
+			notifyPosted = false;
+			if( listener != null && isDirty()) {
+				listener.onFormChanged(EnumFormBinder.this, dirty);
+			}
+			BitMasks.clearAll(dirty);
+		}
+	};
+
+	// runs the notifier just before the next frame; in its own class, so before API 16 Choreographer isn't loaded
+	@TargetApi(16)
+	private static final class FrameNotifier implements Choreographer.FrameCallback {
+		private final Runnable notifier;
+
+		private FrameNotifier(Runnable notifier) {
+			this.notifier = notifier;
+		}
+
+		private void post() {
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			notifier.run();
+		}
+	}
+
+	// a Listener, to mark the slot dirty on a change, and an Observer, to keep it current even on a silent one;
+	// and, if bound to a group, a ModelReplacedListener, to follow the group to a new model
+	private class Slot<T extends Enum<T>> implements EnumChoiceModel.Listener<T>, EnumChoiceModel.Observer<T>,
+			EnumRadioGroup.ModelReplacedListener<T> {
+		private final int slot;
+		// the group bound, or null if a model was bound directly
+		private final EnumRadioGroup<T> group;
+		private EnumChoiceModel<T> model;
+
+		private Slot(int slot, EnumRadioGroup<T> group) {
+			this.slot = slot;
+			this.group = group;
+		}
+
+		@Override
+		public void onChoiceChanged(EnumChoiceModel<T> changed, T checkedValue) {
+			// not a re-click, which repeats the value
+			if( changed.isNotifyingChange()) {
+				markDirty(slot, checkedValue.ordinal());
+			}
+		}
+
+		@Override
+		public void onModelChanged(EnumChoiceModel<T> changed) {
+			ordinals[slot] = (short) changed.getCheckedOrdinal();
+		}
+
+		@Override
+		public void onModelReplaced(EnumRadioGroup<T> replacedIn, EnumChoiceModel<T> old) {
+			detach();
+			// like a silent change: the slot takes the new model's value, but isn't marked dirty
+			attach(replacedIn.getModel());
+		}
+
+		private void attach(EnumChoiceModel<T> model) {
+			this.model = model;
+			model.addListener(this);
+			model.addObserver(this);
+			ordinals[slot] = (short) model.getCheckedOrdinal();
+		}
+
+		private void detach() {
+			model.removeListener(this);
+			model.removeObserver(this);
+		}
+
+		private void load() {
+			model.setCheckedSilently(model.getValue(ordinals[slot]));
+		}
+
+		private void unbind() {
+			detach();
+			if( group != null) {
+				group.removeModelReplacedListener(this);
+			}
+		}
+	}
+}
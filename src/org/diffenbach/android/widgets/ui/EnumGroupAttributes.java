@@ -0,0 +1,124 @@
+package org.diffenbach.android.widgets.ui;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.diffenbach.android.widgets.R;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+
+/**
+ * The EnumRadioGroup styleable's attributes, parsed from an XML element, and cached.
+ * @author TP Diffenbach
+ *
+ * A layout with dozens of groups, or a list that inflates the same layout again and again,
+ * has few distinct sets of these attributes. Each distinct set is parsed with
+ * obtainStyledAttributes once, and kept, keyed by the attributes' raw values;
+ * every later element with the same values gets the parsed set without resolving anything.
+ *
+ * Only elements whose values can't resolve differently in another theme or configuration
+ * are cached: each must be a literal, or a reference to a layout or array, of which only the id
+ * is kept. An element with a style, a ?attr value, or any other reference (a @bool from values-sw600dp,
+ * a localized @string) is parsed every time.
+ *
+ * Used by the XML ctors of EnumRadioGroup, EnumCheckBoxGroup and IndexedChoiceGroup.
+ */
+final class EnumGroupAttributes {
+
+	// only a handful of distinct sets per app, so it's never trimmed
+	private static final Map<String, EnumGroupAttributes> cache = new HashMap<String, EnumGroupAttributes>();
+
+	final String enumClassName;
+	final String enumDefaultValue;
+	final int rbLayout;
+	final int rbNames;
+	final boolean filterFirst;
+	final int rbSections;
+	final int sectionNames;
+	final int sectionHeaderLayout;
+	final boolean collapsed;
+	final boolean persist;
+
+	/**
+	 * Returns the element's parsed attributes, from the cache if they've been seen before.
+	 * @param context
+	 * @param attrs
+	 * @return the parsed attributes
+	 */
+	static EnumGroupAttributes of(Context context, AttributeSet attrs) {
+		String key = keyOf(context.getResources(), attrs);
+		if( key == null) {
+			return new EnumGroupAttributes(context, attrs);
+		}
+		synchronized (cache) {
+			EnumGroupAttributes ret = cache.get(key);
+			if( ret == null) {
+				ret = new EnumGroupAttributes(context, attrs);
+				cache.put(key, ret);
+			}
+			return ret;
+		}
+	}
+
+	// the raw values of our attributes, in order, or null if they can't be cached
+	private static String keyOf(Resources res, AttributeSet attrs) {
+		if( attrs.getStyleAttribute() != 0) {
+			return null;
+		}
+		StringBuilder key = new StringBuilder();
+		for( int i = 0; i < attrs.getAttributeCount(); ++i) {
+			int index = indexOf(attrs.getAttributeNameResource(i));
+			if( index >= 0) {
+				String value = attrs.getAttributeValue(i);
+				if( value != null && (value.startsWith("?")
+						|| value.startsWith("@") && ! isIdReference(res, attrs, i))) {
+					// a theme attribute, or a value that may vary with the configuration
+					return null;
+				}
+				key.append(index).append('=').append(value).append('\u0000');
+			}
+		}
+		return key.toString();
+	}
+
+	// true if the attribute is a reference we keep only the id of: a layout or an array
+	private static boolean isIdReference(Resources res, AttributeSet attrs, int i) {
+		int id = attrs.getAttributeResourceValue(i, 0);
+		if( id == 0) {
+			return false;
+		}
+		try {
+			String type = res.getResourceTypeName(id);
+			return "layout".equals(type) || "array".equals(type);
+		} catch (Resources.NotFoundException e) {
+			return false;
+		}
+	}
+
+	private static int indexOf(int attrResource) {
+		for( int index = 0; index < R.styleable.EnumRadioGroup.length; ++index) {
+			if( R.styleable.EnumRadioGroup[index] == attrResource) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	private EnumGroupAttributes(Context context, AttributeSet attrs) {
+		TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.EnumRadioGroup);
+		enumClassName = a.getString(R.styleable.EnumRadioGroup_enumClassName);
+		enumDefaultValue = a.getString(R.styleable.EnumRadioGroup_enumDefaultValueString);
+		rbLayout = a.getResourceId(R.styleable.EnumRadioGroup_radioButtonLayout, -1);
+		rbNames = a.getResourceId(R.styleable.EnumRadioGroup_radioButtonNames, -1);
+		filterFirst = ! a.getBoolean(R.styleable.EnumRadioGroup_enumDefaultIsShown, true);
+		rbSections = a.getResourceId(R.styleable.EnumRadioGroup_radioButtonSections, -1);
+		sectionNames = a.getResourceId(R.styleable.EnumRadioGroup_sectionNames, -1);
+		sectionHeaderLayout = a.getResourceId(R.styleable.EnumRadioGroup_sectionHeaderLayout, -1);
+		collapsed = a.getBoolean(R.styleable.EnumRadioGroup_sectionsCollapsed, false);
+		persist = a.getBoolean(R.styleable.EnumRadioGroup_persistSelection, false);
+		a.recycle();
+	}
+}
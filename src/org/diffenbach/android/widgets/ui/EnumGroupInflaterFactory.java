@@ -0,0 +1,114 @@
+package org.diffenbach.android.widgets.ui;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+
+/**
+ * A LayoutInflater.Factory2 that makes this library's Views directly, by calling their ctors,
+ * rather than leaving LayoutInflater to find the ctors by reflection.
+ * @author TP Diffenbach
+ *
+ * Makes EnumRadioGroup, multilistener.EnumRadioGroup, EnumCheckBoxGroup, IndexedChoiceGroup
+ * and RadioButtonClickableWhenChecked, written in XML by their full class names;
+ * anything else goes to the delegate factory, if any, or back to the LayoutInflater.
+ * Together with EnumGroupAttributes, which parses each distinct set of a group's XML attributes
+ * once, a layout with dozens of groups inflates without reflection or repeated attribute parsing.
+ *
+ * Install it, before inflating, with install(LayoutInflater.from(activity)). An inflater takes
+ * only one factory, and setFactory2 throws IllegalStateException if a Factory or Factory2
+ * is already set, so install then does nothing: if the inflater already has one (as with AppCompat),
+ * make an EnumGroupInflaterFactory with that one as delegate and call it from your own.
+ * Factory2 needs API 11.
+ */
+public class EnumGroupInflaterFactory implements LayoutInflater.Factory2 {
+
+	private static final String PACKAGE = "org.diffenbach.android.widgets.ui.";
+	private static final String ENUM_RADIO_GROUP = PACKAGE + "EnumRadioGroup";
+	private static final String MULTI_ENUM_RADIO_GROUP = PACKAGE + "multilistener.EnumRadioGroup";
+	private static final String ENUM_CHECK_BOX_GROUP = PACKAGE + "EnumCheckBoxGroup";
+	private static final String INDEXED_CHOICE_GROUP = PACKAGE + "IndexedChoiceGroup";
+	private static final String RADIO_BUTTON_CLICKABLE_WHEN_CHECKED = PACKAGE + "RadioButtonClickableWhenChecked";
+
+	/**
+	 * Installs a factory on the inflater, if it has none.
+	 * @param inflater
+	 * @return true if installed; false if the inflater already has a Factory or Factory2
+	 */
+	public static boolean install(LayoutInflater inflater) {
+		// setFactory2 would throw if either is set
+		if( inflater.getFactory() != null || inflater.getFactory2() != null) {
+			return false;
+		}
+		inflater.setFactory2(new EnumGroupInflaterFactory(null));
+		return true;
+	}
+
+	private final LayoutInflater.Factory delegate;
+
+	/**
+	 * @param delegate the factory to ask for any other View, or null to leave them to the LayoutInflater
+	 */
+	public EnumGroupInflaterFactory(LayoutInflater.Factory2 delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @param delegate a pre-API 11 factory to ask for any other View, without their parent,
+	 * or null to leave them to the LayoutInflater
+	 */
+	public EnumGroupInflaterFactory(LayoutInflater.Factory delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return true if other Views are asked of a delegate factory
+	 */
+	boolean hasDelegate() {
+		return delegate != null;
+	}
+
+	@Override
+	public View onCreateView(View parent, String name, Context context, AttributeSet attrs) {
+		View ret = createView(name, context, attrs);
+		if( ret == null && delegate != null) {
+			ret = delegate instanceof LayoutInflater.Factory2
+					? ((LayoutInflater.Factory2) delegate).onCreateView(parent, name, context, attrs)
+					: delegate.onCreateView(name, context, attrs);
+		}
+		return ret;
+	}
+
+	@Override
+	public View onCreateView(String name, Context context, AttributeSet attrs) {
+		return onCreateView(null, name, context, attrs);
+	}
+
+	/**
+	 * Makes one of this library's Views, or returns null if name isn't one.
+	 * @param name the XML tag: a full class name
+	 * @param context
+	 * @param attrs
+	 * @return the View, or null
+	 */
+	@SuppressWarnings("rawtypes")
+	protected View createView(String name, Context context, AttributeSet attrs) {
+		if( ! name.startsWith(PACKAGE)) {
+			return null;
+		}
+		// the enum class is named in the attributes, so the raw type is all we can make
+		if( ENUM_RADIO_GROUP.equals(name)) {
+			return new EnumRadioGroup(context, attrs);
+		} else if( MULTI_ENUM_RADIO_GROUP.equals(name)) {
+			return new org.diffenbach.android.widgets.ui.multilistener.EnumRadioGroup(context, attrs);
+		} else if( RADIO_BUTTON_CLICKABLE_WHEN_CHECKED.equals(name)) {
+			return new RadioButtonClickableWhenChecked(context, attrs);
+		} else if( ENUM_CHECK_BOX_GROUP.equals(name)) {
+			return new EnumCheckBoxGroup(context, attrs);
+		} else if( INDEXED_CHOICE_GROUP.equals(name)) {
+			return new IndexedChoiceGroup(context, attrs);
+		}
+		return null;
+	}
+}
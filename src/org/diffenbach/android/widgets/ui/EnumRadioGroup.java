@@ -3,20 +3,32 @@ package org.diffenbach.android.widgets.ui;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
 
 import org.diffenbach.android.widgets.R;
+import org.diffenbach.android.widgets.model.EnumChoiceModel;
+import org.diffenbach.android.widgets.model.EnumMetadata;
+import org.diffenbach.android.widgets.model.PendingCheck;
+import org.diffenbach.android.widgets.model.SelectionPublisher;
 import org.diffenbach.android.widgets.utils.AtomicIntViewIdGenerator;
+import org.diffenbach.android.widgets.utils.BitMasks;
+import org.diffenbach.android.widgets.utils.LabelSearchIndex;
+import org.diffenbach.android.widgets.utils.SelectionStore;
 import org.diffenbach.android.widgets.utils.ViewIdGenerator;
 
 import android.app.Activity;
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.content.ContextWrapper;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
+import android.widget.TextView;
 
 
 /**
@@ -24,9 +36,13 @@ import android.widget.RadioGroup;
  * @author TP Diffenbach
  *
  * @param <T> An Enum class (<T extends Enum<T>>)
+ * 
+ * The checked value, the filter's visibility, the default and the listeners
+ * are held by an EnumChoiceModel; the EnumRadioGroup renders its model,
+ * updating only the buttons that differ from it; see SingleChoiceGroup.
  */
 
-public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
+public class EnumRadioGroup<T extends Enum<T>> extends SingleChoiceGroup {
 		
 	/** 
 	 * Wraps findById in a cast
@@ -73,6 +89,9 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 
 	private static final String CLASS_S_NOT_FOUND = "Class \'%s\' not found ";
 	private static final String EXC_MSG_UNEQUAL_NAMES = "%d names for %d enum constants; must be equal";
+	private static final String EXC_MSG_UNEQUAL_SECTIONS = "%d sections for %d enum constants; must be equal";
+	private static final String EXC_MSG_WRONG_MODEL = "Model of %s can't be rendered by a group of %s";
+	private static final String EXC_MSG_BAD_SECTION = "Section %d of enum constant %s is not in range 0 to %d section names -1";
 	
 	// non-final so we can replace it (via reflection) during testing
 	private static ViewIdGenerator viewIdGenerator = AtomicIntViewIdGenerator.INSTANCE;
@@ -80,6 +99,7 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	protected T defaultValue;
 	// While we can get them with defaultValue.getDeclaringClass().getEnumConstants(),
 	// it's a bit of work. Let's be timely.
+	// Shared by every group and model of the enum, see EnumMetadata; don't change it.
 	private T[] enumConstants;
 	// the id of the RadioButton with ordinal() == 0
 	// all other RadioButton ids are consecutive increasing
@@ -89,6 +109,59 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	// the whole point of multi.EnumRadioGroup was to not carry this around
 	// but we need it for callOnChecked because RadioGroup gives no way to retrieve it
 	
+	// what we render
+	private EnumChoiceModel<T> model;
+	// forward model changes to our OnCheckedChangeListeners, so we can remove them from the model
+	private final List<ListenerAdapter> listenerAdapters = new ArrayList<ListenerAdapter>();
+	// told when setModel replaces the model, such as EnumFormBinder's slots; made on first use
+	private List<ModelReplacedListener<T>> modelReplacedListeners;
+	// the latest postCheck not yet applied
+	private final PendingCheck postedCheck = new PendingCheck();
+	private Handler mainHandler;
+	
+	// the labels, by ordinal, as set in init or setNames; an empty label hides its button
+	private CharSequence[] names;
+	// false until the first relabel copies names, which may be shared (see getEnumNames)
+	private boolean namesOwned;
+	// ordinals whose label is empty; their buttons are hidden whatever the model says,
+	// and kept apart from the model's mask so a label change doesn't undo a filter
+	private long[] labelHiddenMask;
+	// the labels of the last spec applied, if nothing has relabeled us since, so apply can skip comparing them
+	private CharSequence[] appliedLabels;
+	// which buttons apply has left enabled, or null if apply has never been called
+	private long[] enabledMask;
+	// our RadioButtons, by ordinal, so we needn't findViewById to touch one
+	private RadioButton[] buttons;
+	// masks of ordinals, see BitMasks
+	// which buttons search() wants shown, or null if we're not searching
+	private long[] searchMask;
+	// which buttons are actually shown, so we only touch the ones that change
+	private long[] renderedMask;
+	private long[] scratchMask;
+	// built on the first search, from names
+	private LabelSearchIndex searchIndex;
+	private Locale searchLocale = Locale.getDefault();
+	// the last query, folded, so we can refine its results as the user types
+	private String lastQuery;
+	
+	// kept so that collapsed sections can be inflated when expanded
+	private int rbLayout;
+	// the sections, or null if this group isn't sectioned
+	private Section[] sections;
+	private int[] sectionOfOrdinal;
+	// ordinals in collapsed sections, which are never shown
+	private long[] collapsedMask;
+	// the number of children init added, so onFinishInflate can find the XML children
+	private int generatedChildCount;
+	// true if built from a predecessor's retained state, whose visibility already has any filter applied
+	private boolean builtFromRetained;
+	
+	// where our checked value is persisted, by our id, or null
+	private SelectionStore selectionStore;
+	// made on first use; started only while we're attached
+	private SelectionPublisher<T> selections;
+	private boolean attached;
+	
 	/**
 	 * Ctor that takes:
 	 * @param context the EnumRadioGroup's context
@@ -98,7 +171,32 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	 */
 	public EnumRadioGroup(Context context, T defaultValue, int rbNames, int rbLayout) {
 		super(context);
+		long watchdogStart = GroupWatchdog.COMPILED_IN ? GroupWatchdog.start() : 0;
 		init(context, defaultValue, rbNames, rbLayout);
+		if( GroupWatchdog.COMPILED_IN) watchdogStop(watchdogStart, GroupWatchdog.Operation.CONSTRUCT);
+	}
+	
+	/**
+	 * Ctor for a sectioned group: each section has a header, which toggles 
+	 * the section's collapsed state when clicked.
+	 * The buttons of a collapsed section are not inflated until the section is first expanded,
+	 * except for the section containing the default value.
+	 * @param context the EnumRadioGroup's context
+	 * @param defaultValue the checked value of the  group if no other RadioButton is checked.
+	 * @param rbNames an resource id of an array of strings to use as the button's labels, or -1
+	 * @param rbLayout the layout to use for each radio button in the group, or -1
+	 * @param sectionMapper assigns each enum constant to a section, 0 to sectionNames.length -1
+	 * @param sectionNames the section headers' labels
+	 * @param collapsed true if the sections should start out collapsed
+	 */
+	public EnumRadioGroup(Context context, T defaultValue, int rbNames, int rbLayout, 
+			SectionMapper<T> sectionMapper, CharSequence[] sectionNames, boolean collapsed) {
+		super(context);
+		long watchdogStart = GroupWatchdog.COMPILED_IN ? GroupWatchdog.start() : 0;
+		init(context, defaultValue, rbNames, rbLayout, 
+				getSections(EnumMetadata.of(defaultValue).sharedValues(), sectionMapper), 
+				sectionNames, -1, collapsed);
+		if( GroupWatchdog.COMPILED_IN) watchdogStop(watchdogStart, GroupWatchdog.Operation.CONSTRUCT);
 	}
 	
 	/**
@@ -132,14 +230,16 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 		if(isInEditMode()) {
 			return; //init(context, (T) Sample.IN, -1, -1);
 		} else {
-			TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.EnumRadioGroup);
-			String enumClassName = a.getString(R.styleable.EnumRadioGroup_enumClassName);
-			String enumDefaultValue = a.getString(R.styleable.EnumRadioGroup_enumDefaultValueString);
-			int rb_layout = a.getResourceId(R.styleable.EnumRadioGroup_radioButtonLayout, -1);
-			int rb_names = a.getResourceId(R.styleable.EnumRadioGroup_radioButtonNames, -1);
-			boolean filterFirst = ! a.getBoolean(R.styleable.EnumRadioGroup_enumDefaultIsShown, true);
-			a.recycle();
-			init(context, enumClassName, enumDefaultValue, rb_names, rb_layout, filterFirst);
+			long watchdogStart = GroupWatchdog.COMPILED_IN ? GroupWatchdog.start() : 0;
+			// parsed once per distinct set of attributes, see EnumGroupAttributes
+			EnumGroupAttributes a = EnumGroupAttributes.of(context, attrs);
+			init(context, a.enumClassName, a.enumDefaultValue, a.rbNames, a.rbLayout, a.filterFirst,
+					a.rbSections, a.sectionNames, a.sectionHeaderLayout, a.collapsed);
+			if( a.persist) {
+				// restored before anyone can have added a listener, so none is called
+				setSelectionStore(SelectionStore.getDefault());
+			}
+			if( GroupWatchdog.COMPILED_IN) watchdogStop(watchdogStart, GroupWatchdog.Operation.CONSTRUCT);
 		}
 	}
 	
@@ -148,7 +248,7 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	 * @return
 	 */
 	public T getDefault() {
-		return defaultValue;
+		return model.getDefault();
 	}
 	
 	/**
@@ -156,7 +256,7 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	 * @return true iff the checked button in this group is the default value
 	 */
 	public boolean isSetToDefault() {
-		return getCheckedValue() == defaultValue;
+		return model.isSetToDefault();
 	}
 	
 	/**
@@ -164,25 +264,7 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	 */
 	@Override
 	public void clearCheck() {
-		super.check(getViewIdForEnum(defaultValue));
-	}
-	
-	/**
-	 * Please prefer using check(T value).
-	 * Sets the checked button to be the RadioButton with the  given id, 
-	 * IF that button is a member of the group; if not, throws IllegalArgumentException
-	 * If the id is -1, checks the RadioButton corresponding to the default passed in the ctor. 
-	 * @see android.widget.RadioGroup#check(int)
-	 */
-	@Override
-	public void check(int id) {
-		if(id == -1) {
-			clearCheck();
-		} else if(isChildRadioButtonIdValid(id)) {
-			super.check(id);
-		} else {
-			throw new IllegalArgumentException("Argument to \'check\' must be in range -1 to count of enum's constants -1");
-		}
+		model.reset();
 	}
 	
 	/**
@@ -190,17 +272,15 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	 * @param value the enum constant to check
 	 */
 	public void check(T value) {
-		super.check( getViewIdForEnum(value) );
+		model.check(value);
 	}
 	
 	/**
 	 * Gets the enum value corresponding to the currently checked RadioButton.
 	 * @return the enum constant corresponding to the currently checked button.
-	 * Note that if you override this to provide non-contiguous ids, 
-	 * you'll also need to override isChildRadioButtonIdValid
 	 */
 	public T getCheckedValue() {
-		return resIdToEnumConstant(getCheckedRadioButtonId());
+		return model.getCheckedValue();
 	}
 	
 	/**
@@ -221,13 +301,15 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	}
 	
 	/**
-	 * return the RadioButton  corresponding to the passed-in enum constant.
+	 * return the RadioButton  corresponding to the passed-in enum constant,
+	 * inflating its section if that section hasn't been inflated yet.
 	 * @param enumConstant
 	 * @return
 	 */
 	// Convenience function
 	public RadioButton findViewByEnum(T enumConstant) {
-		return (RadioButton) findViewById(getViewIdForEnum(enumConstant));
+		ensureInflated(enumConstant.ordinal());
+		return buttons[enumConstant.ordinal()];
 	}
 	
 	/**
@@ -239,7 +321,163 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	}
 	
 	public T[] values() {
-		return getEnumConstants().clone();
+		return model.values();
+	}
+	
+	/**
+	 * Returns the model this group renders.
+	 * @return the model
+	 */
+	public EnumChoiceModel<T> getModel() {
+		return model;
+	}
+	
+	/**
+	 * Renders a different model, of the same enum class; for instance, one built off the main thread.
+	 * Our OnCheckedChangeListeners move to the new model.
+	 * Only buttons that differ between the models are updated, and no listeners are called.
+	 * @param model the model to render
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumRadioGroup<T>> U setModel(EnumChoiceModel<T> model) {
+		if( model.getEnumClass() != getEnumConstants()[0].getDeclaringClass()) {
+			throw new IllegalArgumentException(String.format(EXC_MSG_WRONG_MODEL, 
+					model.getEnumClass().getName(), getEnumConstants()[0].getDeclaringClass().getName()));
+		}
+		EnumChoiceModel<T> old = this.model;
+		old.removeObserver(modelObserver);
+		old.removeObserver(selectionPersister);
+		for( ListenerAdapter adapter : listenerAdapters) {
+			old.removeListener(adapter);
+			model.addListener(adapter);
+		}
+		this.model = model;
+		this.defaultValue = model.getDefault();
+		model.addObserver(modelObserver);
+		if( selectionStore != null) {
+			model.addObserver(selectionPersister);
+		}
+		render();
+		if( selections != null) {
+			selections.setModel(model);
+		}
+		if( modelReplacedListeners != null) {
+			for( int i = 0; i < modelReplacedListeners.size(); ++i) {
+				modelReplacedListeners.get(i).onModelReplaced(this, old);
+			}
+		}
+		return (U) this;
+	}
+	
+	/**
+	 * Package-private: told by setModel when it replaces the model, after the group renders the new one,
+	 * so what observes the old model can move to the new one.
+	 */
+	interface ModelReplacedListener<T extends Enum<T>> {
+		void onModelReplaced(EnumRadioGroup<T> group, EnumChoiceModel<T> old);
+	}
+	
+	void addModelReplacedListener(ModelReplacedListener<T> listener) {
+		if( modelReplacedListeners == null) {
+			modelReplacedListeners = new ArrayList<ModelReplacedListener<T>>(2);
+		}
+		modelReplacedListeners.add(listener);
+	}
+	
+	void removeModelReplacedListener(ModelReplacedListener<T> listener) {
+		if( modelReplacedListeners != null) {
+			modelReplacedListeners.remove(listener);
+		}
+	}
+	
+	/**
+	 * Returns a stream of this group's checked values, for any number of subscribers,
+	 * conflated to the latest value for subscribers that are behind; see SelectionPublisher.
+	 * It runs only while the group is attached to a window: subscribers added while detached
+	 * start when it's attached, and all subscribers are paused while it's detached, and resumed,
+	 * with the latest value, when it's attached again. They're completed when the group is
+	 * detached because its Activity is finishing. The Activity is found through any ContextWrappers,
+	 * such as a ContextThemeWrapper or AppCompat's; a group whose Context has no Activity
+	 * can't tell a final detach, so its subscribers are only paused; complete() them yourself.
+	 * @return the publisher
+	 */
+	public SelectionPublisher<T> getSelections() {
+		if( selections == null) {
+			selections = new SelectionPublisher<T>(model);
+			if( attached) {
+				selections.start();
+			}
+		}
+		return selections;
+	}
+	
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		attached = true;
+		if( selections != null) {
+			selections.start();
+		}
+	}
+	
+	@Override
+	protected void onDetachedFromWindow() {
+		attached = false;
+		if( selections != null) {
+			// a finishing Activity won't attach us again
+			Activity activity = activityOf(getContext());
+			if( activity != null && activity.isFinishing()) {
+				selections.complete();
+			} else {
+				selections.stop();
+			}
+		}
+		super.onDetachedFromWindow();
+	}
+	
+	// the Activity the Context is, or wraps, or null
+	private static Activity activityOf(Context context) {
+		while( context instanceof ContextWrapper) {
+			if( context instanceof Activity) {
+				return (Activity) context;
+			}
+			Context base = ((ContextWrapper) context).getBaseContext();
+			if( base == context) {
+				return null;
+			}
+			context = base;
+		}
+		return null;
+	}
+	
+	/**
+	 * Persists the checked value in the store, keyed by this group's id, and restores it
+	 * from the store now, silently, if the store has a visible value for it.
+	 * Set an id first; a group without one isn't persisted.
+	 * XML groups with persistSelection="true" use SelectionStore.getDefault().
+	 * A persisted group's clicks aren't allocation-free: see SelectionStore.put.
+	 * @param store the store, or null to stop persisting
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumRadioGroup<T>> U setSelectionStore(SelectionStore store) {
+		model.removeObserver(selectionPersister);
+		this.selectionStore = store;
+		if( store != null && getId() != View.NO_ID) {
+			T saved = store.get(getId(), model.getEnumClass());
+			if( saved != null && model.isVisible(saved) && ! BitMasks.get(labelHiddenMask, saved.ordinal())) {
+				model.setCheckedSilently(saved);
+			}
+			model.addObserver(selectionPersister);
+		}
+		return (U) this;
+	}
+	
+	public SelectionStore getSelectionStore() {
+		return selectionStore;
 	}
 
 	/**
@@ -250,10 +488,9 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	 */
 	@SuppressWarnings("unchecked")
 	public <U extends EnumRadioGroup<T>> U filter( DisplayPredicate<T> pred) {
-		for( T ec : getEnumConstants()) {
-			findViewByEnum(ec).setVisibility(pred.apply(ec) ? View.VISIBLE : View.GONE);
-		}
-		
+		long watchdogStart = GroupWatchdog.COMPILED_IN ? GroupWatchdog.start() : 0;
+		model.filter(pred);
+		if( GroupWatchdog.COMPILED_IN) watchdogStop(watchdogStart, GroupWatchdog.Operation.FILTER);
 		return (U) this;
 	}
 	
@@ -277,6 +514,198 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 		return filter(includeAllBut(set));
 	}
 	
+	/**
+	 * Of the buttons the current filter displays, displays only those whose labels contain the query.
+	 * Case is folded using the search Locale (see setSearchLocale).
+	 * 
+	 * The labels are indexed on the first search, so a search doesn't scan every label.
+	 * If the query extends the previous one (as when the user types another character),
+	 * only the previous matches are considered.
+	 * Only buttons whose visibility changes are touched.
+	 * 
+	 * @param query the text to search for; null or empty ends the search, showing all the filter shows
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumRadioGroup<T>> U search( CharSequence query) {
+		if( query == null || query.length() == 0) {
+			lastQuery = null;
+			searchMask = null;
+		} else {
+			LabelSearchIndex index = getSearchIndex();
+			String folded = index.fold(query);
+			if( searchMask == null) {
+				searchMask = BitMasks.newMask(enumConstants.length);
+			}
+			// if the last query is a substring of this one, this one can only match a subset
+			long[] candidates = lastQuery != null && folded.contains(lastQuery) ? searchMask : null;
+			index.query(folded, candidates, searchMask);
+			lastQuery = folded;
+		}
+		applyVisibility();
+		return (U) this;
+	}
+	
+	/**
+	 * Sets the Locale used to fold case when searching.
+	 * Defaults to the default Locale when the group was created.
+	 * @param locale the Locale to fold case with, or null to make search case-sensitive.
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumRadioGroup<T>> U setSearchLocale( Locale locale) {
+		searchLocale = locale;
+		searchIndex = null;
+		lastQuery = null;
+		return (U) this;
+	}
+	
+	/**
+	 * Relabels the buttons in place, as on a locale switch, without rebuilding the group.
+	 * Only buttons whose text actually differs are set, so the others aren't remeasured.
+	 * As in init, an empty name hides its button; a name that's no longer empty shows it again,
+	 * unless the model, a search or a collapsed section hides it.
+	 * Any search in progress is rerun against the new labels.
+	 * @param names the labels, by ordinal; one for each enum constant
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumRadioGroup<T>> U setNames(CharSequence[] names) {
+		if(names.length != enumConstants.length) {
+			throw new IllegalArgumentException(
+					String.format(EXC_MSG_UNEQUAL_NAMES, names.length, enumConstants.length));
+		}
+		boolean changed = false;
+		for( int ordinal = 0; ordinal < names.length; ++ordinal) {
+			changed |= relabel(ordinal, names[ordinal]);
+		}
+		if( changed) {
+			labelsChanged();
+		}
+		return (U) this;
+	}
+	
+	/**
+	 * Relabels the buttons in place from a string array resource; see setNames(CharSequence[]).
+	 * @param rbNames resource id of human-readable names of enums
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	public <U extends EnumRadioGroup<T>> U setNames(int rbNames) {
+		return setNames(getResources().getStringArray(rbNames));
+	}
+	
+	/**
+	 * Relabels one button in place, as for a live count like "Open (12)"; see setNames(CharSequence[]).
+	 * @param value the enum constant to relabel
+	 * @param label its new label
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumRadioGroup<T>> U setLabel(T value, CharSequence label) {
+		if( relabel(value.ordinal(), label)) {
+			labelsChanged();
+		}
+		return (U) this;
+	}
+	
+	/**
+	 * Returns the label of the enum constant's button.
+	 * @param value
+	 * @return the label
+	 */
+	public CharSequence getLabel(T value) {
+		return names[value.ordinal()];
+	}
+	
+	// returns true if the label changed
+	private boolean relabel(int ordinal, CharSequence label) {
+		CharSequence old = names[ordinal];
+		if( TextUtils.equals(old, label)) {
+			return false;
+		}
+		if( ! namesOwned) {
+			// copied to a CharSequence[] of our own, so we can store any CharSequence
+			CharSequence[] owned = new CharSequence[names.length];
+			System.arraycopy(names, 0, owned, 0, names.length);
+			names = owned;
+			namesOwned = true;
+		}
+		names[ordinal] = label;
+		// buttons in collapsed sections aren't inflated yet; they'll get the label when they are
+		RadioButton rb = buttons[ordinal];
+		if( rb != null && label.length() > 0) {
+			rb.setText(label);
+		}
+		BitMasks.set(labelHiddenMask, ordinal, label.length() == 0);
+		return true;
+	}
+	
+	private void labelsChanged() {
+		searchIndex = null;
+		appliedLabels = null;
+		applyVisibility();
+		if( lastQuery != null) {
+			String query = lastQuery;
+			lastQuery = null;
+			search(query);
+		}
+	}
+	
+	/**
+	 * Returns the number of sections; 0 if this group isn't sectioned.
+	 * @return the number of sections
+	 */
+	public int getSectionCount() {
+		return sections == null ? 0 : sections.length;
+	}
+	
+	/**
+	 * Returns the section an enum constant is in.
+	 * @param enumConstant
+	 * @return the section of the enum constant, or -1 if this group isn't sectioned
+	 */
+	public int getSection(T enumConstant) {
+		return sections == null ? -1 : sectionOfOrdinal[enumConstant.ordinal()];
+	}
+	
+	/**
+	 * Returns true if the section is collapsed, hiding all its buttons.
+	 * @param section
+	 * @return true if the section is collapsed
+	 */
+	public boolean isSectionCollapsed(int section) {
+		return sections[section].collapsed;
+	}
+	
+	/**
+	 * Collapses or expands a section. 
+	 * Expanding a section for the first time inflates its buttons.
+	 * @param section the section, 0 to getSectionCount() -1
+	 * @param collapsed true to collapse, false to expand
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumRadioGroup<T>> U setSectionCollapsed(int section, boolean collapsed) {
+		Section s = sections[section];
+		if( s.collapsed != collapsed) {
+			if( ! collapsed) {
+				inflateSection(s);
+			}
+			s.collapsed = collapsed;
+			for( int ordinal : s.ordinals) {
+				BitMasks.set(collapsedMask, ordinal, collapsed);
+			}
+			applyVisibility();
+		}
+		return (U) this;
+	}
+	
 	/**
 	 * Set the (generic parameterized) Change Listener.
 	 * Chains to any existing listener
@@ -284,20 +713,44 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	 * @return this, for chaining
 	 * Template method to return derived type if called on derived type
 	 */
-	@SuppressWarnings("unchecked")
 	public <U extends EnumRadioGroup<T>> U setOnCheckedChangeListener(OnCheckedChangeListener<T> listener) {
-		super.setOnCheckedChangeListener(onCheckedChangeListener = listener);
-		return (U) this;
+		for( ListenerAdapter adapter : listenerAdapters) {
+			model.removeListener(adapter);
+		}
+		listenerAdapters.clear();
+		onCheckedChangeListener = listener;
+		return addModelListener(listener);
 	}
 	
 	/**
-	 * Force a call to onCheckedChangeListener
+	 * Sets a plain RadioGroup listener, as through a RadioGroup reference.
+	 * It's registered with the model like any other, so it replaces our listeners,
+	 * but not the group's own forwarding of clicks to the model.
+	 * @see android.widget.RadioGroup#setOnCheckedChangeListener(android.widget.RadioGroup.OnCheckedChangeListener)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void setOnCheckedChangeListener(final RadioGroup.OnCheckedChangeListener listener) {
+		if( listener == null || listener instanceof OnCheckedChangeListener) {
+			setOnCheckedChangeListener((OnCheckedChangeListener<T>) listener);
+		} else {
+			setOnCheckedChangeListener(new OnCheckedChangeListener<T>() {
+				@Override
+				public void onCheckedChanged(EnumRadioGroup<T> group, T currentValue, int checkedId) {
+					listener.onCheckedChanged(group, checkedId);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Force a call to the listeners
 	 * @return this, for chaining
 	 * Template method to return derived type if called on derived type
 	 */
 	@SuppressWarnings("unchecked")
 	public <U extends EnumRadioGroup<T>> U callOnChecked() {
-		onCheckedChangeListener.onCheckedChanged(this, getCheckedValue(), getCheckedRadioButtonId());
+		model.notifyListeners();
 		return (U) this;
 	}
 	
@@ -306,28 +759,106 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	 * @param checkedValue
 	 */
 	public void setCheckedSilently(T checkedValue) {
-		super.setOnCheckedChangeListener(null); // temporarily null out the listener on supertype 
-		check(checkedValue);
-		super.setOnCheckedChangeListener(onCheckedChangeListener); //restore listener
+		model.setCheckedSilently(checkedValue);
+	}
+	
+	/**
+	 * Checks the value on the main thread; may be called from any thread.
+	 * A burst of posts before the main thread gets to them is applied once, as the latest.
+	 * @param checkedValue
+	 * @param silent true to check without calling any listeners, as setCheckedSilently
+	 */
+	public void postCheck(T checkedValue, boolean silent) {
+		// only the post that finds nothing pending schedules the apply; later ones just replace the value
+		if( postedCheck.post(checkedValue.ordinal(), silent)) {
+			getMainHandler().post(postedCheckApplier);
+		}
+	}
+	
+	private synchronized Handler getMainHandler() {
+		if( mainHandler == null) {
+			mainHandler = new Handler(Looper.getMainLooper());
+		}
+		return mainHandler;
+	}
+	
+	private final Runnable postedCheckApplier = new Runnable() {
+		@Override
+		public void run() {
+			postedCheck.applyTo(model);
+		}
+	};
+	
+	/**
+	 * Brings the group in line with the spec, touching only what differs from what it shows now.
+	 * The checked value is set silently, as setCheckedSilently, since the spec is presumably
+	 * made from state our listeners already know about.
+	 * Labels are compared to the last spec's by reference, then each by content, and only changed
+	 * ones are set; a spec with no labels leaves ours alone. As always, an empty label hides its
+	 * button whatever the spec's visibility. The checked value and visibility are compared to the model,
+	 * so a user's click or a call since the last apply is undone too.
+	 * Applying a spec equal to what's shown allocates nothing and touches no View.
+	 * @param spec
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	public <U extends EnumRadioGroup<T>> U apply(EnumRadioGroupSpec<T> spec) {
+		CharSequence[] labels = spec.sharedLabels();
+		if( labels != null && labels != appliedLabels) {
+			setNames(labels);
+			appliedLabels = labels;
+		}
+		model.setVisibleMask(spec.sharedVisibleMask());
+		model.setCheckedSilently(spec.getChecked());
+		
+		long[] enabled = spec.sharedEnabledMask();
+		if( enabledMask == null) {
+			// buttons start out enabled
+			enabledMask = BitMasks.setAll(BitMasks.newMask(enumConstants.length), enumConstants.length);
+		}
+		if( ! BitMasks.equals(enabledMask, enabled)) {
+			for( int ordinal = 0; ordinal < enumConstants.length; ++ordinal) {
+				boolean enable = BitMasks.get(enabled, ordinal);
+				if( BitMasks.get(enabledMask, ordinal) != enable) {
+					BitMasks.set(enabledMask, ordinal, enable);
+					// buttons in collapsed sections aren't inflated yet; makeButton will disable them
+					if( buttons[ordinal] != null) {
+						buttons[ordinal].setEnabled(enable);
+					}
+				}
+			}
+		}
+		return (U) this;
 	}
 	
 	/**
 	 * Protected methods
 	 */
 	
+	/**
+	 * Adds a listener to the model, without removing any others.
+	 * @param listener the listener to add, or null to add nothing
+	 * @return this, for chaining
+	 * Template method to return derived type if called on derived type
+	 */
+	@SuppressWarnings("unchecked")
+	protected <U extends EnumRadioGroup<T>> U addModelListener(OnCheckedChangeListener<T> listener) {
+		if( listener != null) {
+			ListenerAdapter adapter = new ListenerAdapter(listener);
+			listenerAdapters.add(adapter);
+			model.addListener(adapter);
+		}
+		return (U) this;
+	}
+	
 	/**
 	 * Convenience function to produce a Enum's names if the caller doesn't pass us a list of names.
 	 * @param enumConstants
-	 * @return an array of [toString called on each enum constant]
+	 * @return an array of [toString called on each enum constant], shared by all groups of the enum; don't change it
 	 */
 	protected String[] getEnumNames(T[] enumConstants) {
-		String[] ret = new String[enumConstants.length];
-		int offset = 0 ;
-		for( T ec : enumConstants) {
-			ret[offset] = ec.toString();
-			++offset;
-		}
-		return ret;
+		return EnumMetadata.of(enumConstants[0].getDeclaringClass()).sharedNames();
 	}
 	
 	/**
@@ -339,14 +870,36 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	 * @param rbLayout resource id of layout for radio buttons, or -1
 	 * @param filterFirst true if the first enum (ordinal() == 0) should be filtered out
 	 */
-	@SuppressWarnings("unchecked")
 	protected void init(Context context, String ecn, String dvn, int rbNames, int rbLayout,
 			boolean filterFirst) {
+		init(context, ecn, dvn, rbNames, rbLayout, filterFirst, -1, -1, -1, false);
+	}
+	
+	/**
+	 * The init called form the XML, for sectioned groups
+	 * @param context
+	 * @param ecn name of enum class
+	 * @param dvn name of default enum value
+	 * @param rbNames resource id of human-readable names of enums, or -1
+	 * @param rbLayout resource id of layout for radio buttons, or -1
+	 * @param filterFirst true if the first enum (ordinal() == 0) should be filtered out
+	 * @param rbSections resource id of an integer array of each enum's section, or -1 for no sections
+	 * @param sectionNames resource id of the section headers' labels
+	 * @param sectionHeaderLayout resource id of layout for section headers, or -1
+	 * @param collapsed true if the sections should start out collapsed
+	 */
+	@SuppressWarnings("unchecked")
+	protected void init(Context context, String ecn, String dvn, int rbNames, int rbLayout,
+			boolean filterFirst, int rbSections, int sectionNames, int sectionHeaderLayout, boolean collapsed) {
 		try {
 			Log.i(getClass().getName(), String.format("Enum Class %s,  Enum Value: %s", ecn, dvn));
 			Class<T> ec = (Class<T>) Class.forName(ecn);
-			init(context, Enum.valueOf( ec, dvn), rbNames, rbLayout);
-			if(filterFirst) {
+			init(context, Enum.valueOf( ec, dvn), rbNames, rbLayout, 
+					rbSections != -1 ? context.getResources().getIntArray(rbSections) : null,
+					sectionNames != -1 ? context.getResources().getStringArray(sectionNames) : null,
+					sectionHeaderLayout, collapsed);
+			// a retained visibility is what the user last saw, which the filter mustn't undo
+			if(filterFirst && ! builtFromRetained) {
 				filter( includeAllBut(defaultValue));
 			}
 		} catch (ClassNotFoundException e) {
@@ -363,16 +916,38 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	 * @param rbLayout resource id of human-readable names of enums, or -1
 	 */
 	protected void init(Context context, T defaultValue, int rbNames, int rbLayout ) {
+		init(context, defaultValue, rbNames, rbLayout, null, null, -1, false);
+	}
+	
+	/**
+	 * The init called from the all ctors. For each enum constant, make a RadioButton,
+	 * preceded by section headers if sectionOfOrdinal is not null.
+	 * @param context
+	 * @param defaultValue the default enum value
+	 * @param rbNames resource id of human-readable names of enums, or -1
+	 * @param rbLayout resource id of human-readable names of enums, or -1
+	 * @param sectionOfOrdinal the section of each enum constant, by ordinal, or null for no sections
+	 * @param sectionNames the section headers' labels
+	 * @param sectionHeaderLayout resource id of layout for section headers, or -1
+	 * @param collapsed true if the sections should start out collapsed
+	 */
+	protected void init(Context context, T defaultValue, int rbNames, int rbLayout,
+			int[] sectionOfOrdinal, CharSequence[] sectionNames, int sectionHeaderLayout, boolean collapsed) {
 		
 		this.defaultValue = defaultValue;
-		this.enumConstants = defaultValue.getDeclaringClass().getEnumConstants();
-		this.idOffset = viewIdGenerator.generateViewIds(enumConstants.length);
+		this.model = new EnumChoiceModel<T>(defaultValue);
+		this.enumConstants = EnumMetadata.of(defaultValue).sharedValues();
+		// state kept from this group's predecessor, across a configuration change, or null
+		RetainedGroups.Entry retained = RetainedGroups.take(getId(), defaultValue.getDeclaringClass());
+		this.idOffset = retained != null ? retained.idOffset : viewIdGenerator.generateViewIds(enumConstants.length);
 		
 		if (rbLayout == -1) {
 			rbLayout = R.layout.wrapped_radio_button ;
 		}
+		this.rbLayout = rbLayout;
 		
-		String[] names = rbNames != -1 ? context.getResources().getStringArray(rbNames)
+		CharSequence[] names = retained != null ? retained.names
+			: rbNames != -1 ? context.getResources().getStringArray(rbNames)
 			: getEnumNames(enumConstants);
 
 		
@@ -381,30 +956,178 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 					String.format(EXC_MSG_UNEQUAL_NAMES, names.length, enumConstants.length));
 		}
 		
+		// not copied unless relabeled, since the default names are shared; retained names are a copy
+		this.names = names;
+		this.namesOwned = retained != null;
+		this.buttons = new RadioButton[enumConstants.length];
+		this.scratchMask = BitMasks.newMask(enumConstants.length);
+		this.labelHiddenMask = BitMasks.newMask(enumConstants.length);
+		
+		for( int offset = 0; offset < names.length; ++offset) {
+			if( names[offset].length() == 0) {
+				BitMasks.set(labelHiddenMask, offset); //poor XML-man's filter
+			}
+		}
+		this.builtFromRetained = retained != null;
+		if( retained != null) {
+			model.setVisibleMask(retained.visibleMask);
+			model.setCheckedSilently(enumConstants[retained.checkedOrdinal]);
+		}
+		
+		this.collapsedMask = BitMasks.newMask(enumConstants.length);
+		if( sectionOfOrdinal != null) {
+			makeSections(sectionOfOrdinal, sectionNames, collapsed);
+		}
+		this.renderedMask = BitMasks.andNot(BitMasks.andNot(model.getVisibleMask(BitMasks.newMask(enumConstants.length)),
+				labelHiddenMask), collapsedMask);
+		
 		LayoutInflater inflater = LayoutInflater.from(context);
 		
-		int offset = 0;
+		if( sections == null) {
+			for( int offset = 0; offset < enumConstants.length; ++offset) {
+				// bypass RadioGroups's special addView, so we don't have to muck with LayoutParams
+				addView(makeButton(inflater, offset));
+			}
+		} else {
+			if( sectionHeaderLayout == -1) {
+				sectionHeaderLayout = R.layout.section_header;
+			}
+			OnClickListener headerClickListener = new OnClickListener() {
+				@Override
+				public void onClick(View v) {
+					for( int section = 0; section < sections.length; ++section) {
+						if( sections[section].header == v) {
+							setSectionCollapsed(section, ! sections[section].collapsed);
+						}
+					}
+				}
+			};
+			for( int section = 0; section < sections.length; ++section) {
+				Section s = sections[section];
+				s.header = makeSectionHeader(inflater, sectionHeaderLayout, section, sectionNames[section]);
+				s.header.setOnClickListener(headerClickListener);
+				addView(s.header);
+				// the checked button must always exist, so its section is inflated even if collapsed
+				if( ! s.collapsed || section == sectionOfOrdinal[defaultValue.ordinal()]) {
+					for( int ordinal : s.ordinals) {
+						addView(makeButton(inflater, ordinal));
+					}
+					s.inflated = true;
+				}
+			}
+		}
+		generatedChildCount = getChildCount();
+		
+		trackClicks();
+		model.addObserver(modelObserver);
+		// because we bypassed RadioGroups's special addView, we have to check by hand
+		render();
+	}
+	
+	/**
+	 * Makes the RadioButton for one enum constant, but doesn't add it.
+	 * @param inflater 
+	 * @param ordinal the ordinal of the enum constant
+	 * @return the RadioButton
+	 */
+	protected RadioButton makeButton(LayoutInflater inflater, int ordinal) {
+		// inflated, or for the bundled layouts, made in code; see ButtonFactory
+		RadioButton rb = (RadioButton) ButtonFactory.make(inflater, rbLayout, this);
+		SharedDrawables.applyButtonDrawable(rb, rbLayout);
+		rb.setId(idOffset + ordinal);
+		// the model holds the checked state; a button restoring its own, say into a retained id range,
+		// would check its old value over the model's, calling listeners
+		rb.setSaveEnabled(false);
+		buttons[ordinal] = rb;
+		
+		CharSequence name = names[ordinal];
+		if(name.length() > 0 ) rb.setText(name);
+		if( ! BitMasks.get(renderedMask, ordinal)) rb.setVisibility(View.GONE);
+		if( enabledMask != null && ! BitMasks.get(enabledMask, ordinal)) rb.setEnabled(false);
+		return rb;
+	}
+	
+	/**
+	 * Makes the header for one section, but doesn't add it.
+	 * Override to make a different sort of header; clicking it will toggle the section.
+	 * @param inflater
+	 * @param sectionHeaderLayout resource id of layout for section headers
+	 * @param section the section
+	 * @param name the section's label
+	 * @return the header View
+	 */
+	protected View makeSectionHeader(LayoutInflater inflater, int sectionHeaderLayout, int section, CharSequence name) {
+		View header = inflater.inflate(sectionHeaderLayout, this, false);
+		if( header instanceof TextView) {
+			((TextView) header).setText(name);
+		}
+		return header;
+	}
+	
+	/**
+	 * Convenience function to map each enum constant to its section.
+	 * @param enumConstants
+	 * @param sectionMapper
+	 * @return an array of [getSection called on each enum constant]
+	 */
+	protected int[] getSections(T[] enumConstants, SectionMapper<T> sectionMapper) {
+		int[] ret = new int[enumConstants.length];
 		for( T ec : enumConstants) {
-			// annoyingly, to get layoutparams, we need to inflate this way
-			RadioButton rb = (RadioButton) inflater.inflate(rbLayout, this, false);
-			
-			int id = idOffset + offset;
-			rb.setId(id);
-			
-			String name = names[offset];
-			if(name.length() > 0 ) rb.setText(name);
-			else rb.setVisibility(View.GONE); //poor XML-man's filter
-			
-			// bypass RadioGroups's special addView, so we don't have to muck with LayoutParams
-	
-			addView(rb);
-			
-			// because we bypassed RadioGroups's special addView, we have to check by hand
-			if( ec == defaultValue) {
-				//rb.setChecked(true);
-				check(id);
+			ret[ec.ordinal()] = sectionMapper.getSection(ec);
+		}
+		return ret;
+	}
+	
+	private void makeSections(int[] sectionOfOrdinal, CharSequence[] sectionNames, boolean collapsed) {
+		if(sectionOfOrdinal.length != enumConstants.length) {
+			throw new IllegalArgumentException(
+					String.format(EXC_MSG_UNEQUAL_SECTIONS, sectionOfOrdinal.length, enumConstants.length));
+		}
+		int sectionCount = sectionNames == null ? 0 : sectionNames.length;
+		int[] sizes = new int[sectionCount];
+		for( int ordinal = 0; ordinal < sectionOfOrdinal.length; ++ordinal) {
+			int section = sectionOfOrdinal[ordinal];
+			if( section < 0 || section >= sectionCount) {
+				throw new IllegalArgumentException(
+						String.format(EXC_MSG_BAD_SECTION, section, enumConstants[ordinal], sectionCount));
+			}
+			++sizes[section];
+		}
+		
+		this.sectionOfOrdinal = sectionOfOrdinal;
+		this.sections = new Section[sectionCount];
+		for( int section = 0; section < sectionCount; ++section) {
+			sections[section] = new Section(sizes[section], collapsed);
+			sizes[section] = 0;
+		}
+		for( int ordinal = 0; ordinal < sectionOfOrdinal.length; ++ordinal) {
+			Section s = sections[sectionOfOrdinal[ordinal]];
+			s.ordinals[sizes[sectionOfOrdinal[ordinal]]++] = ordinal;
+			if( collapsed) {
+				BitMasks.set(collapsedMask, ordinal);
 			}
-			++offset;
+		}
+	}
+	
+	/**
+	 * Inflates the section containing the ordinal, if it's not inflated yet,
+	 * so that its RadioButton exists.
+	 * @param ordinal
+	 */
+	protected void ensureInflated(int ordinal) {
+		if( sections != null) {
+			inflateSection(sections[sectionOfOrdinal[ordinal]]);
+		}
+	}
+	
+	private void inflateSection(Section s) {
+		if( ! s.inflated) {
+			LayoutInflater inflater = LayoutInflater.from(getContext());
+			int index = indexOfChild(s.header) + 1;
+			for( int ordinal : s.ordinals) {
+				addView(makeButton(inflater, ordinal), index++);
+			}
+			s.inflated = true;
 		}
 	}
 	
@@ -419,20 +1142,9 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 		super.onFinishInflate();
 		
 		if( ! isInEditMode()) {
-			int childCount = getChildCount();
-			boolean foundDummy = false;
-			for( int xmlChild = enumConstants.length; xmlChild < childCount; ++xmlChild) {
-				View child = getChildAt(xmlChild);
-				if(isDummy(child)) {
-					removeView(child);
-					--xmlChild;
-					--childCount;
-					foundDummy = true;
-				} else if(!foundDummy) {
-					removeView(child);
-					addView(child, xmlChild - enumConstants.length);
-				}
-			}
+			long watchdogStart = GroupWatchdog.COMPILED_IN ? GroupWatchdog.start() : 0;
+			ChoiceGroups.placeXmlChildren(this, generatedChildCount, RadioButton.class);
+			if( GroupWatchdog.COMPILED_IN) watchdogStop(watchdogStart, GroupWatchdog.Operation.FINISH_INFLATE);
 		}
 	}
 	
@@ -459,10 +1171,75 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	 * @param id the id
 	 * @return true if it corresponds to a enum constant radiobutton
 	 */
+	@Override
 	protected boolean isChildRadioButtonIdValid(int id) {
 		return id >= idOffset && id < idOffset + getEnumConstants().length;
 	}
 	
+	/**
+	 * A click, or check(int): tells the model, which we then render.
+	 * check(-1) calls clearCheck, which checks the default passed in the ctor.
+	 */
+	@Override
+	protected void checkChild(int id) {
+		model.check(resIdToEnumConstant(id));
+	}
+	
+	/**
+	 * Brings the RadioGroup in line with the model, without calling any listeners.
+	 */
+	protected void render() {
+		int checkedId = getViewIdForEnum(model.getCheckedValue());
+		if( getCheckedRadioButtonId() != checkedId) {
+			ensureInflated(model.getCheckedOrdinal());
+			renderCheck(checkedId);
+		}
+		applyVisibility();
+	}
+	
+	/**
+	 * Shows exactly the buttons that both the model and search() want shown,
+	 * touching only those whose visibility has changed since the last call.
+	 */
+	protected void applyVisibility() {
+		long[] shown = model.getVisibleMask(scratchMask);
+		if( searchMask != null) {
+			BitMasks.and(shown, searchMask);
+		}
+		BitMasks.andNot(shown, labelHiddenMask);
+		// this also keeps us from touching uninflated buttons
+		BitMasks.andNot(shown, collapsedMask);
+		ChoiceGroups.showChanged(buttons, shown, renderedMask);
+		scratchMask = renderedMask;
+		renderedMask = shown;
+	}
+	
+	/**
+	 * Snapshots what a successor in a recreated Activity can take instead of building anew; see RetainedGroups.
+	 * Holds no Views and no model, so it doesn't keep the old Activity alive.
+	 * @return the snapshot
+	 */
+	RetainedGroups.Entry retain() {
+		CharSequence[] copy = new CharSequence[names.length];
+		System.arraycopy(names, 0, copy, 0, names.length);
+		return new RetainedGroups.Entry(enumConstants[0].getDeclaringClass(), idOffset, copy,
+				model.getCheckedOrdinal(), model.getVisibleMask(BitMasks.newMask(enumConstants.length)));
+	}
+	
+	// see GroupWatchdog; only call if GroupWatchdog.COMPILED_IN, so release builds drop it
+	private void watchdogStop(long start, GroupWatchdog.Operation operation) {
+		GroupWatchdog.stop(start, operation, getId(), 
+				enumConstants != null ? enumConstants[0].getDeclaringClass() : null,
+				enumConstants != null ? enumConstants.length : 0, rbLayout);
+	}
+	
+	private LabelSearchIndex getSearchIndex() {
+		if( searchIndex == null) {
+			searchIndex = new LabelSearchIndex(names, searchLocale);
+		}
+		return searchIndex;
+	}
+	
 	/**
 	 * Return the enum constants that this EnumRadioGroup displays.
 	 * @return
@@ -472,12 +1249,42 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	}
 
 	
+	private final EnumChoiceModel.Observer<T> modelObserver = new EnumChoiceModel.Observer<T>() {
+		@Override
+		public void onModelChanged(EnumChoiceModel<T> changed) {
+			render();
+		}
+	};
+	
+	// the store only writes if the checked value actually changed
+	private final EnumChoiceModel.Observer<T> selectionPersister = new EnumChoiceModel.Observer<T>() {
+		@Override
+		public void onModelChanged(EnumChoiceModel<T> changed) {
+			selectionStore.put(getId(), changed.getCheckedValue());
+		}
+	};
+	
 	/** helper classes 
 	 * 
 	 * @author tpd
 	 * 
 	 */
 	
+	private class ListenerAdapter implements EnumChoiceModel.Listener<T> {
+		private final OnCheckedChangeListener<T> listener;
+		
+		private ListenerAdapter(OnCheckedChangeListener<T> listener) {
+			this.listener = listener;
+		}
+		
+		@Override
+		public void onChoiceChanged(EnumChoiceModel<T> changed, T checkedValue) {
+			long watchdogStart = GroupWatchdog.COMPILED_IN ? GroupWatchdog.start() : 0;
+			listener.onCheckedChanged(EnumRadioGroup.this, checkedValue, getViewIdForEnum(checkedValue));
+			if( GroupWatchdog.COMPILED_IN) watchdogStop(watchdogStart, GroupWatchdog.Operation.DISPATCH);
+		}
+	}
+	
 	public static abstract class OnCheckedChangeListener<T extends Enum<T>> implements RadioGroup.OnCheckedChangeListener {
 		
 		public abstract void onCheckedChanged(EnumRadioGroup<T> group, T currentValue, int checkedId);
@@ -486,7 +1293,9 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 		@Override
 		public void onCheckedChanged(RadioGroup group, int checkedId) {
 			EnumRadioGroup<T> erg = (EnumRadioGroup<T>) group;
-			onCheckedChanged(erg, erg.getCheckedValue(), checkedId);
+			// the id is the value; no need to ask the group again
+			onCheckedChanged(erg, erg.isChildRadioButtonIdValid(checkedId) 
+					? erg.resIdToEnumConstant(checkedId) : erg.getCheckedValue(), checkedId);
 		}
 		
 		public MultiOnCheckedChangeListener<T> toMulti( OnCheckedChangeListener<T> added) {
@@ -511,10 +1320,10 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 	
 			@Override
 			public void onCheckedChanged(EnumRadioGroup<T> group, T currentValue, int checkedId) {
-				for( OnCheckedChangeListener<T> listener : listeners) {
-					listener.onCheckedChanged(group, currentValue, checkedId);
+				// by index, so a dispatch doesn't allocate an Iterator
+				for( int i = 0; i < listeners.size(); ++i) {
+					listeners.get(i).onCheckedChanged(group, currentValue, checkedId);
 				}
-				
 			}
 		}
 	}
@@ -522,14 +1331,57 @@ public class EnumRadioGroup<T extends Enum<T>> extends RadioGroup {
 
 
 	
+	/**
+	 * Assigns enum constants to sections, for sectioned groups.
+	 * @author TP Diffenbach
+	 *
+	 * @param <T>
+	 */
+	public interface SectionMapper<T extends Enum<T>> {
+		int getSection(T enumConstant);
+	}
+	
+	/**
+	 * Implement on an enum to section it by an attribute; see bySection.
+	 */
+	public interface Sectioned {
+		int getSection();
+	}
+	
+	/**
+	 * Factory function for a SectionMapper that sections by the enum's Sectioned.getSection().
+	 * @param notused
+	 * @return
+	 */
+	// That notused class is just for type inference
+	public static <T extends Enum<T> & Sectioned> SectionMapper<T> bySection(Class<T> notused) {
+		return new SectionMapper<T>() {
+			@Override
+			public int getSection(T enumConstant) {
+				return enumConstant.getSection();
+			}
+		};
+	}
+	
+	private static class Section {
+		private final int[] ordinals;
+		private View header;
+		private boolean collapsed;
+		private boolean inflated;
+		
+		private Section(int size, boolean collapsed) {
+			this.ordinals = new int[size];
+			this.collapsed = collapsed;
+		}
+	}
+	
 	/**
 	 * Predicate for setting the display
 	 * @author TP Diffenbach
 	 *
 	 * @param <T>
 	 */
-	public interface DisplayPredicate <T extends Enum<T>> {
-		boolean apply(T enumConstant);
+	public interface DisplayPredicate <T extends Enum<T>> extends EnumChoiceModel.DisplayPredicate<T> {
 	}
 	
 	// Alas, this works, but not with the hack for making arrays...
@@ -0,0 +1,225 @@
+package org.diffenbach.android.widgets.ui;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.diffenbach.android.widgets.model.EnumMetadata;
+import org.diffenbach.android.widgets.utils.BitMasks;
+
+import android.text.TextUtils;
+
+/**
+ * An immutable description of what an EnumRadioGroup shows: its checked value, which buttons
+ * are visible and enabled, and, optionally, their labels. See EnumRadioGroup.apply.
+ * @author TP Diffenbach
+ *
+ * @param <T> An Enum class (<T extends Enum<T>>)
+ *
+ * Start with of(checked), which shows and enables everything and keeps the group's own labels,
+ * and derive others with the with methods; each returns a new spec, or this if nothing would change.
+ * Masks passed in are copied, so the caller may reuse them.
+ */
+public final class EnumRadioGroupSpec<T extends Enum<T>> {
+
+	private static final String EXC_MSG_UNEQUAL_LABELS = "%d labels for %d enum constants; must be equal";
+	private static final String EXC_MSG_WRONG_MASK = "Mask of %d words for %d enum constants; must be %d words";
+
+	/**
+	 * Returns a spec with the value checked, every button visible and enabled, and the group's own labels.
+	 * @param checked
+	 * @return the spec
+	 */
+	public static <T extends Enum<T>> EnumRadioGroupSpec<T> of(T checked) {
+		int size = EnumMetadata.of(checked).size();
+		return new EnumRadioGroupSpec<T>(checked, BitMasks.setAll(BitMasks.newMask(size), size),
+				null, BitMasks.setAll(BitMasks.newMask(size), size));
+	}
+
+	private final T checked;
+	// masks of ordinals, see BitMasks; never changed, nor handed out
+	private final long[] visibleMask;
+	private final long[] enabledMask;
+	// by ordinal, or null to keep the group's own
+	private final CharSequence[] labels;
+
+	private EnumRadioGroupSpec(T checked, long[] visibleMask, CharSequence[] labels, long[] enabledMask) {
+		this.checked = checked;
+		this.visibleMask = visibleMask;
+		this.labels = labels;
+		this.enabledMask = enabledMask;
+	}
+
+	public T getChecked() {
+		return checked;
+	}
+
+	public boolean isVisible(T value) {
+		return BitMasks.get(visibleMask, value.ordinal());
+	}
+
+	public boolean isEnabled(T value) {
+		return BitMasks.get(enabledMask, value.ordinal());
+	}
+
+	/**
+	 * Returns the label of the enum constant's button.
+	 * @param value
+	 * @return the label, or null if this spec keeps the group's own labels
+	 */
+	public CharSequence getLabel(T value) {
+		return labels == null ? null : labels[value.ordinal()];
+	}
+
+	public boolean hasLabels() {
+		return labels != null;
+	}
+
+	/**
+	 * Copies the mask of visible ordinals (see BitMasks) into out.
+	 * @param out a mask at least as large as the enum's values().length
+	 * @return out, for chaining
+	 */
+	public long[] getVisibleMask(long[] out) {
+		return BitMasks.copy(visibleMask, out);
+	}
+
+	/**
+	 * Copies the mask of enabled ordinals (see BitMasks) into out.
+	 * @param out a mask at least as large as the enum's values().length
+	 * @return out, for chaining
+	 */
+	public long[] getEnabledMask(long[] out) {
+		return BitMasks.copy(enabledMask, out);
+	}
+
+	public EnumRadioGroupSpec<T> withChecked(T value) {
+		return value == checked ? this : new EnumRadioGroupSpec<T>(value, visibleMask, labels, enabledMask);
+	}
+
+	public EnumRadioGroupSpec<T> withVisible(EnumSet<T> visible) {
+		return withVisibleMask(toMask(visible));
+	}
+
+	/**
+	 * @param mask a mask (see BitMasks) of the ordinals to show
+	 * @return the new spec, or this if it's the same
+	 */
+	public EnumRadioGroupSpec<T> withVisibleMask(long[] mask) {
+		checkMask(mask);
+		return BitMasks.equals(visibleMask, mask) ? this
+				: new EnumRadioGroupSpec<T>(checked, mask.clone(), labels, enabledMask);
+	}
+
+	public EnumRadioGroupSpec<T> withEnabled(EnumSet<T> enabled) {
+		return withEnabledMask(toMask(enabled));
+	}
+
+	/**
+	 * @param mask a mask (see BitMasks) of the ordinals to enable
+	 * @return the new spec, or this if it's the same
+	 */
+	public EnumRadioGroupSpec<T> withEnabledMask(long[] mask) {
+		checkMask(mask);
+		return BitMasks.equals(enabledMask, mask) ? this
+				: new EnumRadioGroupSpec<T>(checked, visibleMask, labels, mask.clone());
+	}
+
+	/**
+	 * As for EnumRadioGroup.setNames, an empty label hides its button.
+	 * @param labels the labels, by ordinal; one for each enum constant; or null to keep the group's own
+	 * @return the new spec, or this if they're the same
+	 */
+	public EnumRadioGroupSpec<T> withLabels(CharSequence[] labels) {
+		if( labels != null && labels.length != size()) {
+			throw new IllegalArgumentException(String.format(EXC_MSG_UNEQUAL_LABELS, labels.length, size()));
+		}
+		return sameLabels(this.labels, labels) ? this
+				: new EnumRadioGroupSpec<T>(checked, visibleMask, labels == null ? null : labels.clone(), enabledMask);
+	}
+
+	/**
+	 * Package-private: the labels themselves, for EnumRadioGroup.apply to compare by reference.
+	 * @return the labels, or null; don't change them
+	 */
+	CharSequence[] sharedLabels() {
+		return labels;
+	}
+
+	/**
+	 * Package-private: the mask itself, for EnumRadioGroup.apply to diff without copying.
+	 * @return the mask; don't change it
+	 */
+	long[] sharedVisibleMask() {
+		return visibleMask;
+	}
+
+	/**
+	 * Package-private: the mask itself, for EnumRadioGroup.apply to diff without copying.
+	 * @return the mask; don't change it
+	 */
+	long[] sharedEnabledMask() {
+		return enabledMask;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if( o == this) {
+			return true;
+		}
+		if( ! (o instanceof EnumRadioGroupSpec)) {
+			return false;
+		}
+		EnumRadioGroupSpec<?> other = (EnumRadioGroupSpec<?>) o;
+		return checked == other.checked
+				&& Arrays.equals(visibleMask, other.visibleMask)
+				&& Arrays.equals(enabledMask, other.enabledMask)
+				&& sameLabels(labels, other.labels);
+	}
+
+	@Override
+	public int hashCode() {
+		// labels left out, since a CharSequence's hashCode needn't follow its content
+		return (checked.hashCode() * 31 + Arrays.hashCode(visibleMask)) * 31 + Arrays.hashCode(enabledMask);
+	}
+
+	@Override
+	public String toString() {
+		return "EnumRadioGroupSpec checked: " + checked + " visible: " + Arrays.toString(visibleMask)
+				+ " enabled: " + Arrays.toString(enabledMask) + " labels: " + Arrays.toString(labels);
+	}
+
+	private int size() {
+		return EnumMetadata.of(checked).size();
+	}
+
+	private long[] toMask(EnumSet<T> set) {
+		long[] mask = BitMasks.newMask(size());
+		for( T value : set) {
+			BitMasks.set(mask, value.ordinal());
+		}
+		return mask;
+	}
+
+	private void checkMask(long[] mask) {
+		if( mask.length != visibleMask.length) {
+			throw new IllegalArgumentException(
+					String.format(EXC_MSG_WRONG_MASK, mask.length, size(), visibleMask.length));
+		}
+	}
+
+	// by reference, then by content
+	private static boolean sameLabels(CharSequence[] a, CharSequence[] b) {
+		if( a == b) {
+			return true;
+		}
+		if( a == null || b == null || a.length != b.length) {
+			return false;
+		}
+		for( int i = 0; i < a.length; ++i) {
+			if( ! TextUtils.equals(a[i], b[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
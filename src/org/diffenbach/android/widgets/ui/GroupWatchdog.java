@@ -0,0 +1,117 @@
+package org.diffenbach.android.widgets.ui;
+
+/**
+ * An opt-in debug watchdog: tells you when an EnumRadioGroup takes more than a frame's budget
+ * of the main thread to construct, finish inflating, filter, or dispatch to its listeners.
+ * @author TP Diffenbach
+ *
+ * Call enable() (say, in a debug Application's onCreate) with a callback, a budget,
+ * and how often to sample; only one in every sampleEvery operations is timed,
+ * so leaving it on costs next to nothing.
+ *
+ * The timing calls in the groups are all guarded by COMPILED_IN, a compile-time switch in this
+ * library, like RadioButtonClickableWhenChecked.DEBUG; not the library's BuildConfig.DEBUG, which
+ * ADT leaves true, as it builds libraries in debug mode. With it false, the calls are dead code,
+ * the compiler removes them, and there is nothing to time: enable() then throws, rather than
+ * appear to work, and isEnabled() stays false. It's false as shipped, so to use the watchdog,
+ * set COMPILED_IN true in your copy of the library and rebuild it.
+ */
+public final class GroupWatchdog {
+
+	/**
+	 * Set true here, and rebuild, to compile the watchdog in; false compiles it away.
+	 */
+	public static final boolean COMPILED_IN = false;
+
+	/**
+	 * A frame at 60 fps.
+	 */
+	public static final long DEFAULT_BUDGET_MS = 16;
+
+	public enum Operation {
+		CONSTRUCT, FINISH_INFLATE, FILTER, DISPATCH
+	}
+
+	/**
+	 * Told, on the main thread, of each sampled operation over budget.
+	 */
+	public interface Callback {
+		/**
+		 * @param operation what took too long
+		 * @param groupId the group's id, or View.NO_ID
+		 * @param enumClass the group's enum class, or null if construction failed before it was known
+		 * @param constantCount the number of enum constants
+		 * @param layoutRes the group's radioButtonLayout resource id
+		 * @param elapsedNanos how long it took
+		 */
+		void onBudgetExceeded(Operation operation, int groupId, Class<?> enumClass, int constantCount,
+				int layoutRes, long elapsedNanos);
+	}
+
+	private static final long NOT_TIMED = 0;
+
+	private static final String EXC_MSG_NOT_COMPILED_IN =
+			"GroupWatchdog is compiled out: set GroupWatchdog.COMPILED_IN true and rebuild the library to enable it";
+
+	private static volatile Callback callback;
+	private static volatile long budgetNanos = DEFAULT_BUDGET_MS * 1000000L;
+	private static volatile int sampleEvery = 1;
+	// only counts main thread operations, so a lost update just shifts the sample
+	private static int operationCount;
+
+	private GroupWatchdog() {
+	}
+
+	/**
+	 * Starts timing groups' operations.
+	 * @param callback told of operations over budget
+	 * @param budgetMs the budget, in milliseconds; DEFAULT_BUDGET_MS is one frame at 60 fps
+	 * @param sampleEvery time one operation in every sampleEvery; 1 times them all
+	 * @throws IllegalStateException if the watchdog isn't COMPILED_IN, so nothing would be timed
+	 */
+	public static void enable(Callback callback, long budgetMs, int sampleEvery) {
+		if( ! COMPILED_IN) {
+			throw new IllegalStateException(EXC_MSG_NOT_COMPILED_IN);
+		}
+		GroupWatchdog.budgetNanos = budgetMs * 1000000L;
+		GroupWatchdog.sampleEvery = Math.max(1, sampleEvery);
+		GroupWatchdog.callback = callback;
+	}
+
+	public static void disable() {
+		callback = null;
+	}
+
+	/**
+	 * @return true if enabled, which it can only be if COMPILED_IN
+	 */
+	public static boolean isEnabled() {
+		return callback != null;
+	}
+
+	/**
+	 * Starts timing an operation, if it's sampled.
+	 * @return the start time, to pass to stop
+	 */
+	static long start() {
+		if( callback == null || ++operationCount % sampleEvery != 0) {
+			return NOT_TIMED;
+		}
+		return System.nanoTime();
+	}
+
+	/**
+	 * Stops timing an operation, telling the callback if it went over budget.
+	 * @param start what start returned
+	 */
+	static void stop(long start, Operation operation, int groupId, Class<?> enumClass, int constantCount, int layoutRes) {
+		if( start == NOT_TIMED) {
+			return;
+		}
+		long elapsed = System.nanoTime() - start;
+		Callback c = callback;
+		if( c != null && elapsed > budgetNanos) {
+			c.onBudgetExceeded(operation, groupId, enumClass, constantCount, layoutRes, elapsed);
+		}
+	}
+}
@@ -0,0 +1,453 @@
+package org.diffenbach.android.widgets.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.diffenbach.android.widgets.R;
+import org.diffenbach.android.widgets.utils.AtomicIntViewIdGenerator;
+import org.diffenbach.android.widgets.utils.BitMasks;
+import org.diffenbach.android.widgets.utils.ViewIdGenerator;
+
+import android.app.Activity;
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.RadioButton;
+import android.widget.RadioGroup;
+
+
+/**
+ * A class to show a list of labels, known only at runtime, as radio buttons.
+ * @author TP Diffenbach
+ *
+ * The counterpart of EnumRadioGroup for option sets that can't be an enum,
+ * such as those from a server: choices are keyed by their int index into the labels.
+ * It works as EnumRadioGroup does, on the same engine (see SingleChoiceGroup):
+ * buttons get consecutive ids, so index <-> id is a subtraction;
+ * predicates filter what's shown, touching only the buttons that change; listeners fan out
+ * from one tracker; and XML children and dummies are placed the same way (see ChoiceGroups).
+ * An empty, or null, label hides its button, whatever the filter or setVisible say.
+ *
+ * setItems replaces the labels, reusing the existing buttons by position
+ * and setting only the labels that differ.
+ *
+ * In XML, use radioButtonNames for the initial labels, and radioButtonLayout.
+ */
+
+public class IndexedChoiceGroup extends SingleChoiceGroup {
+
+	/**
+	 * Wraps findById in a cast
+	 * @param a an Activity
+	 * @param id an id of an IndexedChoiceGroup
+	 * @return a View that we hope is an IndexedChoiceGroup, or throw a ClassCastException
+	 */
+	public static IndexedChoiceGroup findById( Activity a, int id) {
+		return (IndexedChoiceGroup) a.findViewById(id);
+	}
+
+	/**
+	 * Wraps findById in a cast
+	 * @param v a View
+	 * @param id an id of an IndexedChoiceGroup
+	 * @return a child View that we hope is an IndexedChoiceGroup, or throw ClassCastException
+	 */
+	public static IndexedChoiceGroup findById( View v, int id) {
+		return (IndexedChoiceGroup) v.findViewById(id);
+	}
+
+	/**
+	 * Told when the checked index changes, unless silently.
+	 */
+	public interface OnItemCheckedListener {
+		/**
+		 * @param group
+		 * @param index the checked index, or NONE if setItems removed the checked label
+		 * @param label the checked label, or null
+		 */
+		void onItemChecked(IndexedChoiceGroup group, int index, CharSequence label);
+	}
+
+	/**
+	 * Predicate for setting visibility
+	 */
+	public interface DisplayPredicate {
+		boolean apply(int index, CharSequence label);
+	}
+
+	/**
+	 * The checked index when none is checked.
+	 */
+	public static final int NONE = -1;
+
+	private static final String EXC_MSG_BAD_INDEX = "Index %d is not in range -1 to %d items -1";
+
+	// non-final so we can replace it (via reflection) during testing
+	private static ViewIdGenerator viewIdGenerator = AtomicIntViewIdGenerator.INSTANCE;
+
+	private int rbLayout = R.layout.wrapped_radio_button;
+	private CharSequence[] labels = new CharSequence[0];
+	private RadioButton[] buttons = new RadioButton[0];
+	// the id of the RadioButton at index 0; all other ids are consecutive increasing
+	private int idOffset;
+	// how many consecutive ids we've reserved, so setItems needn't reserve more unless it grows past them
+	private int idCapacity;
+	private int checkedIndex = NONE;
+	// the filter, kept so it can be applied to new items, or null for all
+	private DisplayPredicate predicate;
+	// masks of indexes, see BitMasks: which buttons should be, and are, shown
+	private long[] visibleMask = BitMasks.newMask(0);
+	private long[] renderedMask = BitMasks.newMask(0);
+	private final List<OnItemCheckedListener> listeners = new ArrayList<OnItemCheckedListener>();
+	// the listener setOnCheckedChangeListener added, so a later call can replace it
+	private OnItemCheckedListener radioGroupListener;
+	// the number of children we added, so onFinishInflate can find the XML children
+	private int generatedChildCount;
+	// the number of XML children before our buttons, so setItems knows where to add buttons
+	private int leadingChildCount;
+
+	/**
+	 * Ctor that takes:
+	 * @param context the IndexedChoiceGroup's context
+	 * @param labels the buttons' labels
+	 * @param rbLayout the layout to use for each radio button in the group, or -1
+	 */
+	public IndexedChoiceGroup(Context context, CharSequence[] labels, int rbLayout) {
+		super(context);
+		init(rbLayout);
+		setItems(labels);
+	}
+
+	public IndexedChoiceGroup(Context context, List<? extends CharSequence> labels) {
+		this(context, labels.toArray(new CharSequence[labels.size()]), -1);
+	}
+
+	/** Ctor used to inflate an XML representation of an IndexedChoiceGroup.
+	 *
+	 * @param context
+	 * @param attrs
+	 */
+	public IndexedChoiceGroup(Context context, AttributeSet attrs) {
+		super(context, attrs);
+
+		if( ! isInEditMode()) {
+			EnumGroupAttributes a = EnumGroupAttributes.of(context, attrs);
+			init(a.rbLayout);
+			if( a.rbNames != -1) {
+				setItems(context.getResources().getTextArray(a.rbNames));
+			}
+		}
+	}
+
+	private void init(int rbLayout) {
+		if( rbLayout != -1) {
+			this.rbLayout = rbLayout;
+		}
+		trackClicks();
+	}
+
+	/**
+	 * Replaces the labels. Existing buttons are reused, by position, and only labels that
+	 * differ are set; buttons are inflated or removed only as the count changes.
+	 * The checked label stays checked if it's still among the labels; otherwise none is checked,
+	 * and listeners are told. The filter, if any, is applied to the new labels.
+	 * @param items the new labels
+	 * @return this, for chaining
+	 */
+	public IndexedChoiceGroup setItems(CharSequence[] items) {
+		// the checked label may itself be null
+		boolean wasChecked = checkedIndex != NONE;
+		CharSequence checkedLabel = wasChecked ? labels[checkedIndex] : null;
+		int oldCount = buttons.length;
+		int newCount = items.length;
+
+		boolean renumber = newCount > idCapacity;
+		if( renumber) {
+			// leave room to grow, so the next few setItems don't need new ids
+			idCapacity = Math.max(newCount, idCapacity * 2);
+			idOffset = viewIdGenerator.generateViewIds(idCapacity);
+		}
+
+		RadioButton[] newButtons = new RadioButton[newCount];
+		long[] newRendered = BitMasks.newMask(newCount);
+		labels = items.clone();
+		visibleMask = computeVisible(BitMasks.newMask(newCount));
+
+		// so the RadioGroup doesn't hold the id of a button we're removing or renumbering
+		renderCheck(NONE);
+		for( int index = newCount; index < oldCount; ++index) {
+			removeView(buttons[index]);
+		}
+		LayoutInflater inflater = null;
+		for( int index = 0; index < newCount; ++index) {
+			if( index < oldCount) {
+				RadioButton rb = buttons[index];
+				newButtons[index] = rb;
+				if( renumber) {
+					rb.setId(idOffset + index);
+				}
+				if( ! TextUtils.equals(rb.getText(), items[index])) {
+					rb.setText(items[index]);
+				}
+				BitMasks.set(newRendered, index, rb.getVisibility() == View.VISIBLE);
+			} else {
+				if( inflater == null) {
+					inflater = LayoutInflater.from(getContext());
+				}
+				RadioButton rb = makeButton(inflater, index);
+				newButtons[index] = rb;
+				// new buttons go after the existing ones, before any trailing XML children
+				addView(rb, leadingChildCount + index);
+				BitMasks.set(newRendered, index, rb.getVisibility() == View.VISIBLE);
+			}
+		}
+		buttons = newButtons;
+		renderedMask = newRendered;
+		generatedChildCount += newCount - oldCount;
+
+		int index = wasChecked ? indexOf(checkedLabel) : NONE;
+		checkedIndex = index;
+		render();
+		if( wasChecked && index == NONE) {
+			notifyListeners();
+		}
+		return this;
+	}
+
+	public IndexedChoiceGroup setItems(List<? extends CharSequence> items) {
+		return setItems(items.toArray(new CharSequence[items.size()]));
+	}
+
+	public int getItemCount() {
+		return labels.length;
+	}
+
+	public CharSequence getLabel(int index) {
+		return labels[index];
+	}
+
+	/**
+	 * @param label
+	 * @return the index of the first item with the label, or NONE
+	 */
+	public int indexOf(CharSequence label) {
+		for( int index = 0; index < labels.length; ++index) {
+			if( TextUtils.equals(labels[index], label)) {
+				return index;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * @return the checked index, or NONE
+	 */
+	public int getCheckedIndex() {
+		return checkedIndex;
+	}
+
+	/**
+	 * @return the checked label, or null
+	 */
+	public CharSequence getCheckedLabel() {
+		return checkedIndex != NONE ? labels[checkedIndex] : null;
+	}
+
+	/**
+	 * Checks the button at the index, calling listeners if it changes.
+	 * @param index the index, or NONE to clear
+	 * @return this, for chaining
+	 */
+	public IndexedChoiceGroup checkIndex(int index) {
+		return setCheckedIndex(index, true);
+	}
+
+	/**
+	 * Clears the check, calling listeners if it changes, as checkIndex(NONE).
+	 * @see android.widget.RadioGroup#clearCheck()
+	 */
+	@Override
+	public void clearCheck() {
+		setCheckedIndex(NONE, true);
+	}
+
+	/**
+	 * Sets the index without calling any listeners, as on a restore from bundle
+	 * @param index the index, or NONE to clear
+	 * @return this, for chaining
+	 */
+	public IndexedChoiceGroup setCheckedIndexSilently(int index) {
+		return setCheckedIndex(index, false);
+	}
+
+	/**
+	 * Displays only buttons that pass the filter; the filter also applies to later setItems.
+	 * @param pred the filter, or null to show all but empty labels
+	 * @return this, for chaining
+	 */
+	public IndexedChoiceGroup filter(DisplayPredicate pred) {
+		this.predicate = pred;
+		computeVisible(visibleMask);
+		applyVisibility();
+		return this;
+	}
+
+	/**
+	 * Shows or hides one button; a button with an empty label stays hidden.
+	 * @param index
+	 * @param visible
+	 * @return this, for chaining
+	 */
+	public IndexedChoiceGroup setVisible(int index, boolean visible) {
+		BitMasks.set(visibleMask, index, visible && ! TextUtils.isEmpty(labels[index]));
+		applyVisibility();
+		return this;
+	}
+
+	public boolean isVisible(int index) {
+		return BitMasks.get(visibleMask, index);
+	}
+
+	public IndexedChoiceGroup addOnItemCheckedListener(OnItemCheckedListener listener) {
+		listeners.add(listener);
+		return this;
+	}
+
+	public IndexedChoiceGroup removeOnItemCheckedListener(OnItemCheckedListener listener) {
+		listeners.remove(listener);
+		return this;
+	}
+
+	/**
+	 * Sets a plain RadioGroup listener, replacing any set before; it's called as the
+	 * OnItemCheckedListeners are, with -1 when the check is cleared.
+	 * It doesn't replace the group's own tracking of clicks.
+	 * @see android.widget.RadioGroup#setOnCheckedChangeListener(android.widget.RadioGroup.OnCheckedChangeListener)
+	 */
+	@Override
+	public void setOnCheckedChangeListener(final RadioGroup.OnCheckedChangeListener listener) {
+		listeners.remove(radioGroupListener);
+		radioGroupListener = null;
+		if( listener != null) {
+			radioGroupListener = new OnItemCheckedListener() {
+				@Override
+				public void onItemChecked(IndexedChoiceGroup group, int index, CharSequence label) {
+					listener.onCheckedChanged(group, index != NONE ? getViewIdForIndex(index) : NONE);
+				}
+			};
+			listeners.add(radioGroupListener);
+		}
+	}
+
+	/**
+	 * Return the resource id of the RadioButton at the index.
+	 * @param index
+	 * @return the id
+	 */
+	public int getViewIdForIndex(int index) {
+		return index + idOffset;
+	}
+
+	/**
+	 * Return the index of the RadioButton with the id; a subtraction.
+	 * @param resId a child radioButton id
+	 * @return the index
+	 */
+	public int getIndexForViewId(int resId) {
+		return resId - idOffset;
+	}
+
+	public RadioButton findViewByIndex(int index) {
+		return buttons[index];
+	}
+
+	/**
+	 * we need to fix the position of any XML children
+	 * we move any XML children to precede before our radio buttons
+	 * until we see a dummy
+	 * and we remove all dummies
+	 */
+	@Override
+	protected void onFinishInflate() {
+		super.onFinishInflate();
+
+		if( ! isInEditMode()) {
+			leadingChildCount = ChoiceGroups.placeXmlChildren(this, generatedChildCount, RadioButton.class);
+		}
+	}
+
+	/**
+	 * Makes the RadioButton for one item, but doesn't add it.
+	 * @param inflater
+	 * @param index
+	 * @return the RadioButton
+	 */
+	protected RadioButton makeButton(LayoutInflater inflater, int index) {
+		// inflated, or for the bundled layouts, made in code; see ButtonFactory
+		RadioButton rb = (RadioButton) ButtonFactory.make(inflater, rbLayout, this);
+		SharedDrawables.applyButtonDrawable(rb, rbLayout);
+		rb.setId(idOffset + index);
+		rb.setText(labels[index]);
+		if( ! BitMasks.get(visibleMask, index)) rb.setVisibility(View.GONE);
+		return rb;
+	}
+
+	@Override
+	protected boolean isChildRadioButtonIdValid(int id) {
+		return id >= idOffset && id < idOffset + buttons.length;
+	}
+
+	/**
+	 * A click, or check(int): checks the index, which we then render.
+	 */
+	@Override
+	protected void checkChild(int id) {
+		setCheckedIndex(getIndexForViewId(id), true);
+	}
+
+	private IndexedChoiceGroup setCheckedIndex(int index, boolean notify) {
+		if( index < NONE || index >= labels.length) {
+			throw new IllegalArgumentException(String.format(EXC_MSG_BAD_INDEX, index, labels.length));
+		}
+		if( index != checkedIndex) {
+			checkedIndex = index;
+			render();
+			if( notify) {
+				notifyListeners();
+			}
+		}
+		return this;
+	}
+
+	private void notifyListeners() {
+		CharSequence label = getCheckedLabel();
+		// by index, so a listener may add another without a ConcurrentModificationException
+		for( int i = 0; i < listeners.size(); ++i) {
+			listeners.get(i).onItemChecked(this, checkedIndex, label);
+		}
+	}
+
+	// brings the RadioGroup in line with checkedIndex, without calling any listeners
+	private void render() {
+		renderCheck(checkedIndex != NONE ? getViewIdForIndex(checkedIndex) : NONE);
+		applyVisibility();
+	}
+
+	private void applyVisibility() {
+		ChoiceGroups.showChanged(buttons, visibleMask, renderedMask);
+		BitMasks.copy(visibleMask, renderedMask);
+	}
+
+	// an empty or null label hides its button, as in EnumRadioGroup
+	private long[] computeVisible(long[] out) {
+		BitMasks.clearAll(out);
+		for( int index = 0; index < labels.length; ++index) {
+			if( ! TextUtils.isEmpty(labels[index]) && (predicate == null || predicate.apply(index, labels[index]))) {
+				BitMasks.set(out, index);
+			}
+		}
+		return out;
+	}
+}
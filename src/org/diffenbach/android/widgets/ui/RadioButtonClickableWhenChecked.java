@@ -5,10 +5,16 @@ import android.util.AttributeSet;
 import android.util.Log;
 import android.view.ViewParent;
 import android.widget.RadioButton;
-import android.widget.RadioGroup;
 
 public class RadioButtonClickableWhenChecked extends RadioButton {
 
+	private static final String TAG = "RadioButtonClickableWhenChecked";
+	// compile-time, so the logging is gone from release builds, not just skipped
+	private static final boolean DEBUG = false;
+
+	// the group we're in, found once on attach rather than on every click
+	private EnumRadioGroup<?> group;
+
 	public RadioButtonClickableWhenChecked(Context context) {
 		super(context);
 	}
@@ -21,23 +27,30 @@ public class RadioButtonClickableWhenChecked extends RadioButton {
 		super(context, attrs, defStyle);
 	}
 
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		ViewParent p = getParent();
+		while (p != null && ! (p instanceof EnumRadioGroup<?>)) {
+			p = p.getParent();
+		}
+		group = (EnumRadioGroup<?>) p;
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		group = null;
+		super.onDetachedFromWindow();
+	}
+
 	@Override
     public boolean performClick() {
 
         if(isChecked()) {
-        	Log.i("RadioButtonClickableWhenChecked", "about to call super.performClick()");
             boolean ret = super.performClick();
-            ViewParent p = getParent();
-            while (p != null && ! (p instanceof EnumRadioGroup<?>)) {
-                p = p.getParent();
-            }
-            if (p != null) {
-            	@SuppressWarnings("rawtypes")
-				EnumRadioGroup erg = (EnumRadioGroup<?>) p;
-                Log.i("RadioButtonClickableWhenChecked", "about to call callOnChecked");
-                erg.callOnChecked();
-                Log.i("RadioButtonClickableWhenChecked", "called callOnChecked");
-                //erg.check(this.getId());
+            if (group != null) {
+                if (DEBUG) Log.d(TAG, "calling callOnChecked");
+                group.callOnChecked();
             }
             return ret;
         } else {
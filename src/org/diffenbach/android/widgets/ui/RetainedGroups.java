@@ -0,0 +1,145 @@
+package org.diffenbach.android.widgets.ui;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.res.Configuration;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Opt-in retention of EnumRadioGroups' built state across a configuration change, such as a rotation.
+ * @author TP Diffenbach
+ *
+ * The Views themselves can't be kept: they hold the old Activity as their Context.
+ * What is kept, for each group with an id, is what it took to build and fill it: its id range,
+ * its labels (so no string arrays are loaded), and its checked value and visibility
+ * (so no state need be restored). A group inflated in the recreated Activity with the same id
+ * and enum class takes these instead of allocating and loading them anew.
+ * Its buttons, which reuse the old ids, don't save their own state, so the old buttons' checked state,
+ * restored after onCreate, can't override a check made in onCreate; nor does enumDefaultIsShown="false"
+ * override the retained visibility.
+ *
+ * Use:
+ * <pre>
+ * public Object onRetainNonConfigurationInstance() {
+ *     return RetainedGroups.retain(findViewById(android.R.id.content));
+ * }
+ *
+ * protected void onCreate(Bundle savedInstanceState) {
+ *     super.onCreate(savedInstanceState);
+ *     RetainedGroups.restore(getLastNonConfigurationInstance(), this);
+ *     setContentView(R.layout.main);
+ *     RetainedGroups.finish();
+ *     ...
+ * }
+ * </pre>
+ *
+ * If the configuration changed in a way that changes resources the groups were built from
+ * (locale, layout direction, density, font scale), nothing is restored and the groups are built from scratch.
+ * Labels that vary by other qualifiers (e.g. values-land) shouldn't be used with retention.
+ * Only groups that have their id when constructed, as XML groups do, can take retained state.
+ * Use on the main thread only.
+ */
+public final class RetainedGroups {
+
+	// changes that change the resources a group is built from
+	private static final int RESOURCE_CHANGES = ActivityInfo.CONFIG_LOCALE
+			| ActivityInfo.CONFIG_LAYOUT_DIRECTION | ActivityInfo.CONFIG_DENSITY | ActivityInfo.CONFIG_FONT_SCALE;
+
+	// what restore made available to the groups being inflated, until finish
+	private static RetainedGroups pending;
+
+	/**
+	 * Collects the retainable state of every EnumRadioGroup with an id under root.
+	 * @param root
+	 * @return the state, to return from onRetainNonConfigurationInstance
+	 */
+	public static RetainedGroups retain(View root) {
+		RetainedGroups ret = new RetainedGroups(new Configuration(root.getResources().getConfiguration()));
+		ret.collect(root);
+		return ret;
+	}
+
+	/**
+	 * Makes retained state available to the groups inflated until finish() is called,
+	 * if the configuration is compatible.
+	 * @param lastNonConfigurationInstance what retain returned, or anything else (including null) to do nothing
+	 * @param context the new Activity
+	 */
+	public static void restore(Object lastNonConfigurationInstance, Context context) {
+		pending = null;
+		if( lastNonConfigurationInstance instanceof RetainedGroups) {
+			RetainedGroups retained = (RetainedGroups) lastNonConfigurationInstance;
+			if( (retained.configuration.diff(context.getResources().getConfiguration()) & RESOURCE_CHANGES) == 0) {
+				pending = retained;
+			}
+		}
+	}
+
+	/**
+	 * Stops making retained state available; any not taken is dropped.
+	 */
+	public static void finish() {
+		pending = null;
+	}
+
+	/**
+	 * Takes the retained state of the group with the id and enum class, if any; each is taken once.
+	 * @param id
+	 * @param enumClass
+	 * @return the state, or null
+	 */
+	static Entry take(int id, Class<?> enumClass) {
+		if( pending == null || id == View.NO_ID) {
+			return null;
+		}
+		Entry entry = pending.entries.get(id);
+		if( entry == null || entry.enumClass != enumClass) {
+			return null;
+		}
+		pending.entries.remove(id);
+		return entry;
+	}
+
+	/**
+	 * One group's retained state.
+	 */
+	static final class Entry {
+		final Class<?> enumClass;
+		final int idOffset;
+		final CharSequence[] names;
+		final int checkedOrdinal;
+		final long[] visibleMask;
+
+		Entry(Class<?> enumClass, int idOffset, CharSequence[] names, int checkedOrdinal, long[] visibleMask) {
+			this.enumClass = enumClass;
+			this.idOffset = idOffset;
+			this.names = names;
+			this.checkedOrdinal = checkedOrdinal;
+			this.visibleMask = visibleMask;
+		}
+	}
+
+	private final Configuration configuration;
+	private final Map<Integer, Entry> entries = new HashMap<Integer, Entry>();
+
+	private RetainedGroups(Configuration configuration) {
+		this.configuration = configuration;
+	}
+
+	private void collect(View view) {
+		if( view instanceof EnumRadioGroup<?>) {
+			if( view.getId() != View.NO_ID) {
+				entries.put(view.getId(), ((EnumRadioGroup<?>) view).retain());
+			}
+		} else if( view instanceof ViewGroup) {
+			ViewGroup group = (ViewGroup) view;
+			for( int child = 0; child < group.getChildCount(); ++child) {
+				collect(group.getChildAt(child));
+			}
+		}
+	}
+}
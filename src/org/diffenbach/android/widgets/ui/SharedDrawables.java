@@ -0,0 +1,74 @@
+package org.diffenbach.android.widgets.ui;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.diffenbach.android.widgets.R;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.drawable.Drawable;
+import android.widget.CompoundButton;
+
+/**
+ * Button drawables for the slim layouts, made from one ConstantState per theme.
+ * @author TP Diffenbach
+ *
+ * The slim layouts (slim_radio_button, slim_check_box) leave the button drawable to us.
+ * Rather than each button resolving and loading its own from the theme, the first button
+ * of a theme resolves it once, and every later button, of any group in that theme, gets
+ * a new Drawable of the same ConstantState: the bitmaps and state are shared, not copied.
+ * To change one button's drawable, call mutate() on it first; only then is its state copied.
+ */
+final class SharedDrawables {
+
+	private static final int[] RADIO_INDICATOR = { android.R.attr.listChoiceIndicatorSingle };
+	private static final int[] CHECK_INDICATOR = { android.R.attr.listChoiceIndicatorMultiple };
+
+	// by theme, weakly, since a theme lives only as long as its Activity
+	private static final Map<Resources.Theme, Drawable.ConstantState> radioStates =
+			new WeakHashMap<Resources.Theme, Drawable.ConstantState>();
+	private static final Map<Resources.Theme, Drawable.ConstantState> checkStates =
+			new WeakHashMap<Resources.Theme, Drawable.ConstantState>();
+
+	private SharedDrawables() {
+	}
+
+	/**
+	 * Gives the button its theme's shared indicator, if it was inflated from a slim layout;
+	 * buttons from any other layout already have theirs.
+	 * @param button
+	 * @param layout the layout it was inflated from
+	 */
+	static void applyButtonDrawable(CompoundButton button, int layout) {
+		if( layout == R.layout.slim_radio_button) {
+			button.setButtonDrawable(newDrawable(button.getContext(), radioStates, RADIO_INDICATOR));
+		} else if( layout == R.layout.slim_check_box) {
+			button.setButtonDrawable(newDrawable(button.getContext(), checkStates, CHECK_INDICATOR));
+		}
+	}
+
+	private static Drawable newDrawable(Context context, Map<Resources.Theme, Drawable.ConstantState> states, int[] attr) {
+		Resources.Theme theme = context.getTheme();
+		Drawable.ConstantState state;
+		synchronized (states) {
+			state = states.get(theme);
+		}
+		if( state == null) {
+			TypedArray a = theme.obtainStyledAttributes(attr);
+			Drawable d = a.getDrawable(0);
+			a.recycle();
+			if( d == null || d.getConstantState() == null) {
+				// nothing to share
+				return d;
+			}
+			state = d.getConstantState();
+			synchronized (states) {
+				states.put(theme, state);
+			}
+			return d;
+		}
+		return state.newDrawable(context.getResources());
+	}
+}
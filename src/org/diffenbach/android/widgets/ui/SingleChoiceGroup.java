@@ -0,0 +1,97 @@
+package org.diffenbach.android.widgets.ui;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.widget.RadioGroup;
+
+/**
+ * The single-choice engine shared by EnumRadioGroup and IndexedChoiceGroup.
+ * @author TP Diffenbach
+ *
+ * The checked choice is held by the subclass (EnumRadioGroup's model, IndexedChoiceGroup's index),
+ * and the RadioGroup only renders it: a click on a button is passed to checkChild,
+ * and renderCheck brings the RadioGroup in line with the subclass without that echoing back.
+ * check(int) takes only our buttons' ids, and -1 for clearCheck, as the subclass defines it.
+ */
+abstract class SingleChoiceGroup extends RadioGroup {
+
+	private static final String EXC_MSG_BAD_ID = "Id %d is not -1 or the id of one of the group's buttons";
+
+	// non-zero while we're bringing the RadioGroup in line with the subclass, so we don't echo it back;
+	// a depth, not a flag, so a nested render doesn't end the outer one's suppression
+	private int renderDepth;
+
+	SingleChoiceGroup(Context context) {
+		super(context);
+	}
+
+	SingleChoiceGroup(Context context, AttributeSet attrs) {
+		super(context, attrs);
+	}
+
+	/**
+	 * Please prefer the subclass's typed check.
+	 * Checks the button with the id, which must be one of ours, or -1 to clearCheck;
+	 * otherwise throws IllegalArgumentException.
+	 * @see android.widget.RadioGroup#check(int)
+	 */
+	@Override
+	public void check(int id) {
+		if( id == -1) {
+			clearCheck();
+		} else if( isChildRadioButtonIdValid(id)) {
+			checkChild(id);
+		} else {
+			throw new IllegalArgumentException(String.format(EXC_MSG_BAD_ID, id));
+		}
+	}
+
+	/**
+	 * Check if an id is of one of our buttons.
+	 * @param id the id
+	 * @return true if it's the id of one of our buttons
+	 */
+	protected abstract boolean isChildRadioButtonIdValid(int id);
+
+	/**
+	 * Checks the choice of the button with the id, calling listeners if it changes;
+	 * for a click, or check(int). The subclass then calls renderCheck.
+	 * @param id a valid id
+	 */
+	protected abstract void checkChild(int id);
+
+	/**
+	 * Starts passing clicks to checkChild; call once the ids are valid.
+	 * It uses the RadioGroup's own listener, so the subclass must override setOnCheckedChangeListener.
+	 */
+	protected void trackClicks() {
+		super.setOnCheckedChangeListener(new RadioGroup.OnCheckedChangeListener() {
+			@Override
+			public void onCheckedChanged(RadioGroup group, int checkedId) {
+				// a click, unless this is just us rendering
+				if( renderDepth == 0 && isChildRadioButtonIdValid(checkedId)) {
+					checkChild(checkedId);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Checks the button with the id, or clears the check, without calling checkChild or any listener.
+	 * @param checkedId the id to check, or -1 to clear
+	 */
+	protected void renderCheck(int checkedId) {
+		if( getCheckedRadioButtonId() != checkedId) {
+			++renderDepth;
+			try {
+				if( checkedId == -1) {
+					super.clearCheck();
+				} else {
+					super.check(checkedId);
+				}
+			} finally {
+				--renderDepth;
+			}
+		}
+	}
+}
@@ -73,6 +73,11 @@ public class EnumRadioGroup<T extends Enum<T>> extends org.diffenbach.android.wi
 		super(context, defaultValue, rbNames, rbLayout);
 	}
 
+	public EnumRadioGroup(Context context, T defaultValue, int rbNames, int rbLayout,
+			SectionMapper<T> sectionMapper, CharSequence[] sectionNames, boolean collapsed) {
+		super(context, defaultValue, rbNames, rbLayout, sectionMapper, sectionNames, collapsed);
+	}
+
 	public EnumRadioGroup(Context context, T defaultValue, int rbNames) {
 		super(context, defaultValue, rbNames);
 	}
@@ -81,19 +86,34 @@ public class EnumRadioGroup<T extends Enum<T>> extends org.diffenbach.android.wi
 		super(context, defaultValue);
 	}
 
+	/**
+	 * The listeners set or added through setOnCheckedChangeListener(boolean, ...), combined.
+	 * @deprecated no longer what's called: each listener is registered with the model.
+	 * Still kept up to date, for subclasses that read it.
+	 */
+	@Deprecated
 	protected OnCheckedChangeListener<T> onCheckChangedListener;
 	
 	/**
 	 * Sets or adds a new OnCheckedChangeListener.
+	 * Each listener is added to the model, which calls them in the order added.
 	 * @param retainExisting 
 	 * 		false to replace the old listener, if any, with this one;
 	 * 		true to retain existing listeners, if any, and add this one
 	 * @param listener the listener to set/add
 	 */
+	@SuppressWarnings("deprecation")
 	public <U extends EnumRadioGroup<T>> U setOnCheckedChangeListener(boolean retainExisting, OnCheckedChangeListener<T> listener) {
-		return super.setOnCheckedChangeListener( this.onCheckChangedListener =
-				( ! retainExisting || this.onCheckChangedListener == null) 
-				? listener : this.onCheckChangedListener.toMulti(listener));
+		if( ! retainExisting || onCheckChangedListener == null) {
+			onCheckChangedListener = listener;
+		} else if( listener != null) {
+			onCheckChangedListener = onCheckChangedListener.toMulti(listener);
+		}
+		if( retainExisting) {
+			return this.<U>addModelListener(listener);
+		} else {
+			return this.<U>setOnCheckedChangeListener(listener);
+		}
 	}
 	
 	public <U extends EnumRadioGroup<T>> U addOnCheckedChangeListener(OnCheckedChangeListener<T> listener) {
@@ -0,0 +1,170 @@
+/**
+ *
+ */
+package org.diffenbach.android.widgets.utils;
+
+/**
+ * @author TP Diffenbach
+ *
+ * Static helpers that treat a long[] as a fixed-size set of small ints,
+ * usually enum ordinals.
+ *
+ * Unlike java.util.BitSet, the caller owns the storage, so a mask can be
+ * allocated once and reused on every change without generating garbage.
+ * Bits beyond the size the mask was created for are always kept clear.
+ */
+public class BitMasks {
+
+	/**
+	 * Returns the number of longs needed to hold bits bits.
+	 * @param bits the number of bits
+	 * @return the number of words needed
+	 */
+	public static int wordsFor(int bits) {
+		return (bits + 63) >>> 6;
+	}
+
+	/**
+	 * Returns a new mask, all clear, large enough to hold bits bits.
+	 * @param bits the number of bits
+	 * @return a new, empty, mask
+	 */
+	public static long[] newMask(int bits) {
+		return new long[wordsFor(bits)];
+	}
+
+	public static boolean get(long[] mask, int bit) {
+		return (mask[bit >>> 6] & (1L << bit)) != 0;
+	}
+
+	public static void set(long[] mask, int bit) {
+		mask[bit >>> 6] |= 1L << bit;
+	}
+
+	public static void clear(long[] mask, int bit) {
+		mask[bit >>> 6] &= ~(1L << bit);
+	}
+
+	public static void set(long[] mask, int bit, boolean value) {
+		if(value) set(mask, bit);
+		else clear(mask, bit);
+	}
+
+	/**
+	 * Sets the lowest bits bits of the mask, and clears the rest.
+	 * @param mask the mask to fill
+	 * @param bits the number of bits to set
+	 * @return the mask, for chaining
+	 */
+	public static long[] setAll(long[] mask, int bits) {
+		int full = bits >>> 6;
+		for( int i = 0; i < mask.length; ++i) {
+			mask[i] = i < full ? -1L : 0L;
+		}
+		if( (bits & 63) != 0) {
+			mask[full] = (1L << bits) - 1;
+		}
+		return mask;
+	}
+
+	public static long[] clearAll(long[] mask) {
+		for( int i = 0; i < mask.length; ++i) {
+			mask[i] = 0L;
+		}
+		return mask;
+	}
+
+	public static long[] copy(long[] from, long[] to) {
+		System.arraycopy(from, 0, to, 0, to.length);
+		return to;
+	}
+
+	/**
+	 * mask &= other
+	 * @return the mask, for chaining
+	 */
+	public static long[] and(long[] mask, long[] other) {
+		for( int i = 0; i < mask.length; ++i) {
+			mask[i] &= other[i];
+		}
+		return mask;
+	}
+
+	/**
+	 * mask |= other
+	 * @return the mask, for chaining
+	 */
+	public static long[] or(long[] mask, long[] other) {
+		for( int i = 0; i < mask.length; ++i) {
+			mask[i] |= other[i];
+		}
+		return mask;
+	}
+
+	/**
+	 * mask &= ~other
+	 * @return the mask, for chaining
+	 */
+	public static long[] andNot(long[] mask, long[] other) {
+		for( int i = 0; i < mask.length; ++i) {
+			mask[i] &= ~other[i];
+		}
+		return mask;
+	}
+
+	/**
+	 * out = a ^ b; out may be either a or b.
+	 * @return out, for chaining
+	 */
+	public static long[] xor(long[] a, long[] b, long[] out) {
+		for( int i = 0; i < out.length; ++i) {
+			out[i] = a[i] ^ b[i];
+		}
+		return out;
+	}
+
+	public static boolean isEmpty(long[] mask) {
+		for( long word : mask) {
+			if( word != 0L) return false;
+		}
+		return true;
+	}
+
+	public static int cardinality(long[] mask) {
+		int count = 0;
+		for( long word : mask) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	public static boolean equals(long[] a, long[] b) {
+		for( int i = 0; i < a.length; ++i) {
+			if( a[i] != b[i]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the index of the first set bit at or after from, or -1 if there is none.
+	 * Use as:
+	 * 		for( int bit = nextSetBit(mask, 0); bit >= 0; bit = nextSetBit(mask, bit + 1))
+	 * @param mask the mask to search
+	 * @param from the first bit to consider
+	 * @return the index of the next set bit, or -1
+	 */
+	public static int nextSetBit(long[] mask, int from) {
+		int i = from >>> 6;
+		if( i >= mask.length) return -1;
+		long word = mask[i] & (-1L << from);
+		for(;;) {
+			if( word != 0L) {
+				return (i << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if( ++i == mask.length) {
+				return -1;
+			}
+			word = mask[i];
+		}
+	}
+}
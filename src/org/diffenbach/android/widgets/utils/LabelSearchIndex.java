@@ -0,0 +1,153 @@
+/**
+ *
+ */
+package org.diffenbach.android.widgets.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * @author TP Diffenbach
+ *
+ * A substring index over a fixed array of labels.
+ *
+ * Every character and every pair of adjacent characters (a bigram) of every
+ * label is a key; each key maps to a mask (see BitMasks) of the labels containing it.
+ * A query ANDs the masks of its bigrams, so finding the candidates costs a
+ * few binary searches and mask ANDs, rather than a scan of every label.
+ * Queries longer than two characters then confirm only the surviving candidates.
+ *
+ * Labels and queries are case-folded with toLowerCase(Locale) if a Locale
+ * is given, and matched exactly if it's null.
+ */
+public class LabelSearchIndex {
+
+	private final Locale foldLocale;
+	private final String[] folded;
+	private final int size;
+	// sorted, so lookup is a binary search
+	private final long[] keys;
+	private final long[][] postings;
+
+	/**
+	 * @param labels the labels to index; the label's position is its index in query results
+	 * @param foldLocale the Locale used to case-fold labels and queries, or null to match case
+	 */
+	public LabelSearchIndex(CharSequence[] labels, Locale foldLocale) {
+		this.foldLocale = foldLocale;
+		this.size = labels.length;
+		this.folded = new String[size];
+
+		Map<Long, long[]> grams = new HashMap<Long, long[]>();
+		for( int label = 0; label < size; ++label) {
+			String s = folded[label] = foldLabel(labels[label]);
+			for( int c = 0; c < s.length(); ++c) {
+				BitMasks.set(postingFor(grams, unigram(s.charAt(c))), label);
+				if( c > 0) {
+					BitMasks.set(postingFor(grams, bigram(s.charAt(c - 1), s.charAt(c))), label);
+				}
+			}
+		}
+
+		keys = new long[grams.size()];
+		int offset = 0;
+		for( Long key : grams.keySet()) {
+			keys[offset++] = key;
+		}
+		Arrays.sort(keys);
+		postings = new long[keys.length][];
+		for( int i = 0; i < keys.length; ++i) {
+			postings[i] = grams.get(keys[i]);
+		}
+	}
+
+	/**
+	 * @return the number of labels indexed
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Case-folds a query the same way the labels were folded.
+	 * @param query
+	 * @return the folded query
+	 */
+	public String fold(CharSequence query) {
+		String s = query.toString();
+		return foldLocale == null ? s : s.toLowerCase(foldLocale);
+	}
+
+	/**
+	 * Finds the labels containing a query.
+	 *
+	 * If candidates is not null, only labels in candidates are considered;
+	 * pass the previous result when the new query contains the previous query,
+	 * as happens when the user types another character.
+	 * out may be the same array as candidates.
+	 *
+	 * @param foldedQuery a query, already passed through fold()
+	 * @param candidates a mask of the labels to consider, or null for all
+	 * @param out receives the mask of matching labels
+	 * @return true if any label matched
+	 */
+	public boolean query(String foldedQuery, long[] candidates, long[] out) {
+		if( candidates == null) {
+			BitMasks.setAll(out, size);
+		} else if( candidates != out) {
+			BitMasks.copy(candidates, out);
+		}
+
+		int length = foldedQuery.length();
+		if( length == 1) {
+			if( ! andPosting(unigram(foldedQuery.charAt(0)), out)) return false;
+		} else {
+			for( int c = 1; c < length; ++c) {
+				if( ! andPosting(bigram(foldedQuery.charAt(c - 1), foldedQuery.charAt(c)), out)) return false;
+			}
+		}
+
+		if( length > 2) {
+			// bigrams can all be present without the query being; confirm the survivors
+			for( int label = BitMasks.nextSetBit(out, 0); label >= 0; label = BitMasks.nextSetBit(out, label + 1)) {
+				if( ! folded[label].contains(foldedQuery)) {
+					BitMasks.clear(out, label);
+				}
+			}
+		}
+		return ! BitMasks.isEmpty(out);
+	}
+
+	private boolean andPosting(long key, long[] out) {
+		int found = Arrays.binarySearch(keys, key);
+		if( found < 0) {
+			BitMasks.clearAll(out);
+			return false;
+		}
+		BitMasks.and(out, postings[found]);
+		return ! BitMasks.isEmpty(out);
+	}
+
+	private long[] postingFor(Map<Long, long[]> grams, long key) {
+		long[] posting = grams.get(key);
+		if( posting == null) {
+			grams.put(key, posting = BitMasks.newMask(size));
+		}
+		return posting;
+	}
+
+	// unigrams are 0 to 0xFFFF; bigrams are all larger
+	private static long unigram(char c) {
+		return c;
+	}
+
+	private static long bigram(char first, char second) {
+		return ((first + 1L) << 16) | second;
+	}
+
+	private String foldLabel(CharSequence label) {
+		return label == null ? "" : fold(label);
+	}
+}
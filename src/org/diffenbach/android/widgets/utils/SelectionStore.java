@@ -0,0 +1,243 @@
+/**
+ *
+ */
+package org.diffenbach.android.widgets.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.diffenbach.android.widgets.model.EnumMetadata;
+
+import android.util.Log;
+
+/**
+ * @author TP Diffenbach
+ *
+ * Persists selections, by group id, in one small binary file.
+ *
+ * Selections are kept by enum constant name, not ordinal, so that reordering
+ * or adding constants doesn't scramble them; a name that no longer exists is ignored.
+ *
+ * The file is read once, memory-mapped, when the store is made; make it off the main
+ * thread if you can, and install it with setDefault before inflating any groups that use it.
+ * Changes are written behind, on a background thread: the first change schedules a write
+ * after a short delay, and any further changes before then are written with it.
+ *
+ * File format: int magic, int count, then count entries of (int id, short length, length bytes UTF-8 name).
+ */
+public class SelectionStore {
+
+	public static final long DEFAULT_WRITE_DELAY_MS = 500;
+
+	private static final int MAGIC = 0x45524753; // "ERGS"
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final String TAG = "SelectionStore";
+
+	private static volatile SelectionStore defaultStore;
+
+	/**
+	 * Sets the store that groups inflated with persistSelection="true" use.
+	 * @param store the store, or null for none
+	 */
+	public static void setDefault(SelectionStore store) {
+		defaultStore = store;
+	}
+
+	public static SelectionStore getDefault() {
+		return defaultStore;
+	}
+
+	private final File file;
+	private final long writeDelayMs;
+	// guarded by this
+	private final Map<Integer, String> selections = new HashMap<Integer, String>();
+	private boolean writeScheduled;
+
+	private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, TAG);
+			t.setDaemon(true);
+			t.setPriority(Thread.MIN_PRIORITY);
+			return t;
+		}
+	});
+
+	/**
+	 * Makes a store backed by the file, reading it if it exists.
+	 * @param file
+	 */
+	public SelectionStore(File file) {
+		this(file, DEFAULT_WRITE_DELAY_MS);
+	}
+
+	/**
+	 * Makes a store backed by the file, reading it if it exists.
+	 * @param file
+	 * @param writeDelayMs how long after a change to wait, gathering other changes, before writing
+	 */
+	public SelectionStore(File file, long writeDelayMs) {
+		this.file = file;
+		this.writeDelayMs = writeDelayMs;
+		read();
+	}
+
+	/**
+	 * Returns the name of the constant stored for the group, or null.
+	 * @param groupId
+	 * @return the stored name, or null
+	 */
+	public synchronized String get(int groupId) {
+		return selections.get(groupId);
+	}
+
+	/**
+	 * Returns the constant stored for the group, or null if there is none
+	 * or the enum no longer has a constant of that name.
+	 * @param groupId
+	 * @param enumClass
+	 * @return the stored constant, or null
+	 */
+	public <T extends Enum<T>> T get(int groupId, Class<T> enumClass) {
+		String name = get(groupId);
+		// not getEnumConstants(), which copies them on every call
+		return name != null ? EnumMetadata.of(enumClass).forName(name) : null;
+	}
+
+	/**
+	 * Stores the constant for the group; it's written to the file shortly.
+	 * Called on every change to a persisted group, and allocates: the group id is boxed
+	 * to look it up, and the first change in each write delay schedules a write.
+	 * @param groupId
+	 * @param value
+	 */
+	public void put(int groupId, Enum<?> value) {
+		put(groupId, value.name());
+	}
+
+	public synchronized void put(int groupId, String name) {
+		if( name.equals(selections.get(groupId))) {
+			return;
+		}
+		selections.put(groupId, name);
+		if( ! writeScheduled) {
+			writeScheduled = true;
+			writer.schedule(writeTask, writeDelayMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public synchronized void remove(int groupId) {
+		if( selections.remove(groupId) != null && ! writeScheduled) {
+			writeScheduled = true;
+			writer.schedule(writeTask, writeDelayMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Writes any pending changes now, on the background thread, as from onPause.
+	 */
+	public void flush() {
+		writer.execute(writeTask);
+	}
+
+	private final Runnable writeTask = new Runnable() {
+		@Override
+		public void run() {
+			write();
+		}
+	};
+
+	private void read() {
+		if( ! file.exists()) {
+			return;
+		}
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "r");
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if( buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+				throw new IOException("Not a selection store: " + file);
+			}
+			int count = buffer.getInt();
+			byte[] bytes = new byte[64];
+			synchronized (this) {
+				for( int entry = 0; entry < count; ++entry) {
+					int id = buffer.getInt();
+					int length = buffer.getShort() & 0xFFFF;
+					if( bytes.length < length) {
+						bytes = new byte[length];
+					}
+					buffer.get(bytes, 0, length);
+					selections.put(id, new String(bytes, 0, length, UTF_8));
+				}
+			}
+		} catch (IOException e) {
+			// a missing or damaged store just means nothing is restored
+			logFailure("read", e);
+		} catch (RuntimeException e) {
+			// a truncated file underflows the buffer
+			logFailure("read", e);
+		} finally {
+			close(raf);
+		}
+	}
+
+	private void write() {
+		Map<Integer, String> snapshot;
+		synchronized (this) {
+			writeScheduled = false;
+			snapshot = new HashMap<Integer, String>(selections);
+		}
+		File temp = new File(file.getPath() + ".tmp");
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			out.writeInt(MAGIC);
+			out.writeInt(snapshot.size());
+			for( Map.Entry<Integer, String> entry : snapshot.entrySet()) {
+				byte[] name = entry.getValue().getBytes(UTF_8);
+				out.writeInt(entry.getKey());
+				out.writeShort(name.length);
+				out.write(name);
+			}
+			out.close();
+			out = null;
+			// rename is atomic, so a reader never sees half a file
+			if( ! temp.renameTo(file)) {
+				throw new IOException("Couldn't rename " + temp + " to " + file);
+			}
+		} catch (IOException e) {
+			logFailure("write", e);
+		} finally {
+			close(out);
+		}
+	}
+
+	private static void close(java.io.Closeable c) {
+		if( c != null) {
+			try {
+				c.close();
+			} catch (IOException e) {
+				// nothing more to do
+			}
+		}
+	}
+
+	private void logFailure(String what, Exception e) {
+		Log.w(TAG, String.format("couldn't %s %s", what, file), e);
+	}
+}
@@ -0,0 +1,156 @@
+package org.diffenbach.android.widgets.ui;
+
+import org.diffenbach.android.widgets.R;
+
+import android.os.Debug;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.Log;
+import android.widget.RadioButton;
+import android.widget.RadioGroup;
+
+/**
+ * Fails if a click on a group's button, from performClick to our listener, allocates
+ * anything the same click on a plain RadioGroup doesn't.
+ * @author TP Diffenbach
+ *
+ * View.performClick may itself allocate, say for an accessibility event when a service is on,
+ * so each case is measured against the same clicks, on the same number of buttons,
+ * of a plain RadioGroup of plain RadioButtons; what the platform allocates isn't ours.
+ * Both counts are logged, so a run on a device reports them.
+ *
+ * The groups are attached, so RadioButtonClickableWhenChecked has found its group,
+ * with sound effects off, so the click doesn't go to the AudioManager.
+ * The groups aren't persisted: a persisted group's clicks allocate, see SelectionStore.put.
+ */
+public class ClickAllocationTest extends ActivityInstrumentationTestCase2<GroupTestActivity> {
+
+	enum Direction {
+		NORTH, EAST, SOUTH, WEST
+	}
+
+	private static final String TAG = "ClickAllocationTest";
+	private static final int CLICKS = 200;
+
+	/**
+	 * Builds an attached group, and returns its buttons; its listener counts calls in calls[0].
+	 */
+	private interface GroupBuilder {
+		RadioButton[] build(GroupTestActivity activity, int[] calls);
+	}
+
+	public ClickAllocationTest() {
+		super(GroupTestActivity.class);
+	}
+
+	public void testClickThatChecksAllocatesNothingOfItsOwn() {
+		assertNoMoreThanPlatform("check", enumGroup(R.layout.vertical_radio_button), false);
+	}
+
+	public void testClickThatChecksClickableWhenCheckedAllocatesNothingOfItsOwn() {
+		assertNoMoreThanPlatform("check clickable when checked",
+				enumGroup(R.layout.vertical_radio_button_clickable_when_checked), false);
+	}
+
+	public void testReclickOfCheckedAllocatesNothingOfItsOwn() {
+		assertNoMoreThanPlatform("reclick", enumGroup(R.layout.vertical_radio_button_clickable_when_checked), true);
+	}
+
+	private void assertNoMoreThanPlatform(String name, GroupBuilder ours, boolean reclick) {
+		// a plain RadioGroup doesn't tell its listener of a reclick; ours, via callOnChecked, does
+		int platform = countClickAllocations(plainGroup(), reclick, reclick ? 0 : CLICKS);
+		int allocated = countClickAllocations(ours, reclick, CLICKS);
+		Log.i(TAG, String.format("%s: %d allocations in %d clicks; plain RadioGroup %d", name, allocated, CLICKS, platform));
+		assertTrue(String.format("%s: %d allocations in %d clicks, more than a plain RadioGroup's %d",
+				name, allocated, CLICKS, platform), allocated <= platform);
+	}
+
+	private static GroupBuilder enumGroup(final int layout) {
+		return new GroupBuilder() {
+			@Override
+			public RadioButton[] build(GroupTestActivity activity, final int[] calls) {
+				EnumRadioGroup<Direction> group = new EnumRadioGroup<Direction>(activity, Direction.NORTH, -1, layout);
+				group.setOnCheckedChangeListener(new EnumRadioGroup.OnCheckedChangeListener<Direction>() {
+					@Override
+					public void onCheckedChanged(EnumRadioGroup<Direction> g, Direction currentValue, int checkedId) {
+						++calls[0];
+					}
+				});
+				activity.getContainer().addView(group);
+				Direction[] values = Direction.values();
+				RadioButton[] buttons = new RadioButton[values.length];
+				for( int i = 0; i < values.length; ++i) {
+					buttons[i] = group.findViewByEnum(values[i]);
+				}
+				return buttons;
+			}
+		};
+	}
+
+	private static GroupBuilder plainGroup() {
+		return new GroupBuilder() {
+			@Override
+			public RadioButton[] build(GroupTestActivity activity, final int[] calls) {
+				RadioGroup group = new RadioGroup(activity);
+				RadioButton[] buttons = new RadioButton[Direction.values().length];
+				for( int i = 0; i < buttons.length; ++i) {
+					buttons[i] = new RadioButton(activity);
+					buttons[i].setId(i + 1);
+					group.addView(buttons[i]);
+				}
+				group.check(buttons[0].getId());
+				group.setOnCheckedChangeListener(new RadioGroup.OnCheckedChangeListener() {
+					@Override
+					public void onCheckedChanged(RadioGroup g, int checkedId) {
+						++calls[0];
+					}
+				});
+				activity.getContainer().addView(group);
+				return buttons;
+			}
+		};
+	}
+
+	// makes an attached group, and counts what CLICKS clicks allocate;
+	// reclick clicks the checked button every time, otherwise each click checks the next button
+	private int countClickAllocations(final GroupBuilder builder, final boolean reclick, int expectedCalls) {
+		final GroupTestActivity activity = getActivity();
+		// allocations, listener calls
+		final int[] counts = new int[2];
+		getInstrumentation().runOnMainSync(new Runnable() {
+			@Override
+			public void run() {
+				activity.getContainer().removeAllViews();
+				int[] calls = new int[1];
+				RadioButton[] buttons = builder.build(activity, calls);
+				for( RadioButton button : buttons) {
+					button.setSoundEffectsEnabled(false);
+				}
+				// once around first, so anything made lazily, like drawable states, is made
+				for( int i = 0; i < buttons.length; ++i) {
+					click(buttons, i, reclick);
+				}
+				calls[0] = 0;
+
+				Debug.startAllocCounting();
+				Debug.resetThreadAllocCount();
+				for( int i = 0; i < CLICKS; ++i) {
+					click(buttons, i, reclick);
+				}
+				counts[0] = Debug.getThreadAllocCount();
+				Debug.stopAllocCounting();
+				counts[1] = calls[0];
+			}
+		});
+		assertEquals("listener calls", expectedCalls, counts[1]);
+		return counts[0];
+	}
+
+	private static void click(RadioButton[] buttons, int i, boolean reclick) {
+		if( reclick) {
+			// the first, checked by default, stays checked
+			buttons[0].performClick();
+		} else {
+			buttons[i % buttons.length].performClick();
+		}
+	}
+}
@@ -0,0 +1,269 @@
+package org.diffenbach.android.widgets.ui;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.diffenbach.android.widgets.R;
+import org.diffenbach.android.widgets.model.EnumMetadata;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CompoundButton;
+
+/**
+ * Heap footprint of groups, per bundled layout, against a checked-in baseline.
+ * @author TP Diffenbach
+ *
+ * For each layout, builds GROUPS groups of a small and of a large enum, keeping them, and measures
+ * the heap they retain (used heap after GC, before and after) and the objects allocated
+ * to build them (Debug's thread allocation count). The difference between the two enums
+ * gives the cost per constant; what's left, the cost per group.
+ *
+ * Each measure must be within assets/footprint_baseline.properties, plus its tolerance:
+ * keys are layout.measure, falling back to default.measure. A measure with no baseline fails,
+ * as only measured values belong there. Every run writes what it measured
+ * to footprint_measured.properties in the files dir, and to the log, in the same form,
+ * so the baseline, or a deliberate change, can be recorded by copying it over the baseline.
+ * What the models alone allocate is also measured on a plain JVM, by jvmtests' ModelFootprintTest.
+ *
+ * Also checks that enum metadata and button drawable ConstantStates are shared by groups,
+ * not copied into each.
+ */
+public class FootprintTest extends InstrumentationTestCase {
+
+	enum Small {
+		S0, S1, S2, S3
+	}
+
+	enum Large {
+		L0, L1, L2, L3, L4, L5, L6, L7, L8, L9, L10, L11, L12, L13, L14, L15, L16, L17, L18, L19
+	}
+
+	private static final String TAG = "FootprintTest";
+	private static final String BASELINE_ASSET = "footprint_baseline.properties";
+	private static final String MEASURED_FILE = "footprint_measured.properties";
+	private static final int GROUPS = 40;
+
+	private static final String BYTES_PER_GROUP = "bytesPerGroup";
+	private static final String BYTES_PER_CONSTANT = "bytesPerConstant";
+	private static final String OBJECTS_PER_GROUP = "objectsPerGroup";
+	private static final String OBJECTS_PER_CONSTANT = "objectsPerConstant";
+
+	/**
+	 * A bundled layout, by the name it has in the baseline.
+	 */
+	private static final class Layout {
+		final String name;
+		final int res;
+		final boolean checkBox;
+
+		Layout(String name, int res, boolean checkBox) {
+			this.name = name;
+			this.res = res;
+			this.checkBox = checkBox;
+		}
+	}
+
+	private static final Layout[] LAYOUTS = {
+		new Layout("horizontal_radio_button", R.layout.horizontal_radio_button, false),
+		new Layout("vertical_radio_button", R.layout.vertical_radio_button, false),
+		new Layout("wrapped_radio_button", R.layout.wrapped_radio_button, false),
+		new Layout("horizontal_radio_button_clickable_when_checked", R.layout.horizontal_radio_button_clickable_when_checked, false),
+		new Layout("vertical_radio_button_clickable_when_checked", R.layout.vertical_radio_button_clickable_when_checked, false),
+		new Layout("wrapped_radio_button_clickable_when_checked", R.layout.wrapped_radio_button_clickable_when_checked, false),
+		new Layout("slim_radio_button", R.layout.slim_radio_button, false),
+		new Layout("horizontal_check_box", R.layout.horizontal_check_box, true),
+		new Layout("vertical_check_box", R.layout.vertical_check_box, true),
+		new Layout("wrapped_check_box", R.layout.wrapped_check_box, true),
+		new Layout("slim_check_box", R.layout.slim_check_box, true),
+	};
+
+	public void testFootprintWithinBaseline() throws Exception {
+		Properties baseline = new Properties();
+		InputStream in = getInstrumentation().getContext().getAssets().open(BASELINE_ASSET);
+		try {
+			baseline.load(in);
+		} finally {
+			in.close();
+		}
+		double tolerance = Double.parseDouble(baseline.getProperty("tolerance", "0"));
+
+		Properties measured = new Properties();
+		List<String> exceeded = new ArrayList<String>();
+		for( Layout layout : LAYOUTS) {
+			long[] small = measure(layout, Small.S0);
+			long[] large = measure(layout, Large.L0);
+			int extraConstants = Large.values().length - Small.values().length;
+			long bytesPerConstant = (large[0] - small[0]) / extraConstants;
+			long objectsPerConstant = (large[1] - small[1]) / extraConstants;
+
+			record(measured, baseline, tolerance, exceeded, layout.name, BYTES_PER_CONSTANT, bytesPerConstant);
+			record(measured, baseline, tolerance, exceeded, layout.name, BYTES_PER_GROUP,
+					small[0] - bytesPerConstant * Small.values().length);
+			record(measured, baseline, tolerance, exceeded, layout.name, OBJECTS_PER_CONSTANT, objectsPerConstant);
+			record(measured, baseline, tolerance, exceeded, layout.name, OBJECTS_PER_GROUP,
+					small[1] - objectsPerConstant * Small.values().length);
+		}
+		save(measured);
+		if( ! exceeded.isEmpty()) {
+			fail("Footprint over, or missing from, the baseline: " + exceeded);
+		}
+	}
+
+	public void testEnumMetadataIsShared() throws Exception {
+		final Context context = getInstrumentation().getTargetContext();
+		final List<Object> groups = new ArrayList<Object>();
+		getInstrumentation().runOnMainSync(new Runnable() {
+			@Override
+			public void run() {
+				groups.add(new EnumRadioGroup<Large>(context, Large.L0));
+				groups.add(new EnumRadioGroup<Large>(context, Large.L3, -1, R.layout.slim_radio_button));
+				groups.add(new EnumCheckBoxGroup<Large>(context, Large.class));
+				groups.add(new EnumCheckBoxGroup<Large>(context, Large.class, -1, R.layout.slim_check_box));
+			}
+		});
+		Object shared = EnumMetadata.of(Large.class).sharedValues();
+		for( Object group : groups) {
+			assertSame("constants of " + group, shared, fieldOf(group, "enumConstants"));
+		}
+		// groups without a names resource share the default labels, until relabeled
+		Object sharedNames = EnumMetadata.of(Large.class).sharedNames();
+		assertSame(sharedNames, fieldOf(groups.get(0), "names"));
+		assertSame(sharedNames, fieldOf(groups.get(1), "names"));
+	}
+
+	public void testButtonDrawablesAreShared() throws Exception {
+		final Context context = getInstrumentation().getTargetContext();
+		for( final Layout layout : LAYOUTS) {
+			final ViewGroup[] groups = new ViewGroup[2];
+			getInstrumentation().runOnMainSync(new Runnable() {
+				@Override
+				public void run() {
+					groups[0] = build(context, layout, Small.S0);
+					groups[1] = build(context, layout, Small.S0);
+				}
+			});
+			CompoundButton first = (CompoundButton) groups[0].getChildAt(0);
+			Drawable.ConstantState button = buttonDrawable(first).getConstantState();
+			Drawable.ConstantState background = first.getBackground() != null ? first.getBackground().getConstantState() : null;
+			assertNotNull(layout.name, button);
+			for( ViewGroup group : groups) {
+				for( int i = 0; i < group.getChildCount(); ++i) {
+					CompoundButton b = (CompoundButton) group.getChildAt(i);
+					assertSame(layout.name + " button drawable of child " + i, button, buttonDrawable(b).getConstantState());
+					if( background != null) {
+						assertSame(layout.name + " background of child " + i, background, b.getBackground().getConstantState());
+					}
+				}
+			}
+		}
+	}
+
+	// builds and keeps GROUPS groups; returns, per group, the bytes retained and the objects allocated
+	private long[] measure(final Layout layout, final Enum<?> defaultValue) {
+		final Context context = getInstrumentation().getTargetContext();
+		final long[] ret = new long[2];
+		getInstrumentation().runOnMainSync(new Runnable() {
+			@Override
+			public void run() {
+				// once first, so what's made once per process or per enum (templates, metadata, drawable states) isn't counted
+				build(context, layout, defaultValue);
+
+				List<View> kept = new ArrayList<View>(GROUPS);
+				long before = usedHeap();
+				Debug.startAllocCounting();
+				Debug.resetThreadAllocCount();
+				for( int i = 0; i < GROUPS; ++i) {
+					kept.add(build(context, layout, defaultValue));
+				}
+				int allocated = Debug.getThreadAllocCount();
+				Debug.stopAllocCounting();
+				long after = usedHeap();
+
+				ret[0] = (after - before) / kept.size();
+				ret[1] = allocated / kept.size();
+			}
+		});
+		return ret;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static ViewGroup build(Context context, Layout layout, Enum defaultValue) {
+		if( layout.checkBox) {
+			return new EnumCheckBoxGroup(context, defaultValue.getDeclaringClass(), -1, layout.res);
+		}
+		return new EnumRadioGroup(context, defaultValue, -1, layout.res);
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for( int i = 0; i < 4; ++i) {
+			runtime.gc();
+			runtime.runFinalization();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static void record(Properties measured, Properties baseline, double tolerance, List<String> exceeded,
+			String layout, String measure, long value) {
+		String key = layout + "." + measure;
+		measured.setProperty(key, Long.toString(value));
+		Log.i(TAG, key + "=" + value);
+		String ceiling = baseline.getProperty(key, baseline.getProperty("default." + measure));
+		if( ceiling == null) {
+			exceeded.add(key + "=" + value + " has no baseline");
+		} else if( value > Long.parseLong(ceiling) * (1 + tolerance)) {
+			exceeded.add(key + "=" + value + " > " + ceiling);
+		}
+	}
+
+	private void save(Properties measured) throws IOException {
+		File file = new File(getInstrumentation().getTargetContext().getFilesDir(), MEASURED_FILE);
+		OutputStream out = new FileOutputStream(file);
+		try {
+			measured.store(out, "measured by " + TAG + "; copy over tests/assets/" + BASELINE_ASSET + " to record");
+		} finally {
+			out.close();
+		}
+		Log.i(TAG, "measured footprint written to " + file);
+	}
+
+	// a private field of the group, by name, from its class or a superclass
+	private static Object fieldOf(Object group, String name) throws Exception {
+		for( Class<?> c = group.getClass(); c != null; c = c.getSuperclass()) {
+			try {
+				Field f = c.getDeclaredField(name);
+				f.setAccessible(true);
+				return f.get(group);
+			} catch (NoSuchFieldException e) {
+				// try the superclass
+			}
+		}
+		throw new NoSuchFieldException(name);
+	}
+
+	// CompoundButton.getButtonDrawable() is API 23; before that, there's only the field
+	private static Drawable buttonDrawable(CompoundButton button) throws Exception {
+		try {
+			Method getter = CompoundButton.class.getMethod("getButtonDrawable");
+			return (Drawable) getter.invoke(button);
+		} catch (NoSuchMethodException e) {
+			Field f = CompoundButton.class.getDeclaredField("mButtonDrawable");
+			f.setAccessible(true);
+			return (Drawable) f.get(button);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package org.diffenbach.android.widgets.ui;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.widget.LinearLayout;
+
+/**
+ * An empty Activity, so tests can attach groups to a window.
+ * @author TP Diffenbach
+ */
+public class GroupTestActivity extends Activity {
+
+	private LinearLayout container;
+
+	@Override
+	protected void onCreate(Bundle savedInstanceState) {
+		super.onCreate(savedInstanceState);
+		container = new LinearLayout(this);
+		container.setOrientation(LinearLayout.VERTICAL);
+		setContentView(container);
+	}
+
+	/**
+	 * @return the content view, to add groups to; main thread only
+	 */
+	public LinearLayout getContainer() {
+		return container;
+	}
+}
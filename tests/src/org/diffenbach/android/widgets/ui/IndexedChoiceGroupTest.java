@@ -0,0 +1,68 @@
+package org.diffenbach.android.widgets.ui;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+
+/**
+ * IndexedChoiceGroup's empty-label rule, and null labels, which count as empty.
+ * @author TP Diffenbach
+ */
+public class IndexedChoiceGroupTest extends AndroidTestCase {
+
+	private IndexedChoiceGroup group;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		group = new IndexedChoiceGroup(getContext(), new CharSequence[] { "one", "", null, "four" }, -1);
+	}
+
+	public void testEmptyAndNullLabelsAreHidden() {
+		assertShown(true, false, false, true);
+	}
+
+	public void testSetVisibleDoesNotShowAnEmptyOrNullLabel() {
+		group.setVisible(1, true).setVisible(2, true);
+		assertShown(true, false, false, true);
+		group.setVisible(0, false);
+		assertShown(false, false, false, true);
+	}
+
+	public void testFilterDoesNotShowAnEmptyOrNullLabel() {
+		group.filter(new IndexedChoiceGroup.DisplayPredicate() {
+			@Override
+			public boolean apply(int index, CharSequence label) {
+				return index != 3;
+			}
+		});
+		assertShown(true, false, false, false);
+	}
+
+	public void testACheckedNullLabelSurvivesSetItems() {
+		group.checkIndex(2);
+		group.setItems(new CharSequence[] { null, "one" });
+		assertEquals(0, group.getCheckedIndex());
+		assertNull(group.getCheckedLabel());
+	}
+
+	public void testCheckTakesOnlyOurIds() {
+		group.check(group.getViewIdForIndex(3));
+		assertEquals(3, group.getCheckedIndex());
+		assertEquals(group.getViewIdForIndex(3), group.getCheckedRadioButtonId());
+		group.check(-1);
+		assertEquals(IndexedChoiceGroup.NONE, group.getCheckedIndex());
+		try {
+			group.check(group.getViewIdForIndex(4));
+			fail("checked an id past the items");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	private void assertShown(boolean... shown) {
+		for( int index = 0; index < shown.length; ++index) {
+			assertEquals("index " + index, shown[index], group.isVisible(index));
+			assertEquals("index " + index, shown[index] ? View.VISIBLE : View.GONE,
+					group.findViewByIndex(index).getVisibility());
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package org.diffenbach.android.widgets.ui;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import android.test.InstrumentationTestCase;
+
+/**
+ * Calls postCheck from many threads at once, to test its lock-free coalescing.
+ * @author TP Diffenbach
+ *
+ * Loud constants are posted to be checked with listeners called, quiet ones silently,
+ * so the listener can tell if a post's silent flag got attached to another's value.
+ * After each round, a last post from one thread must win, or a post was lost or left pending.
+ *
+ * The coalescing itself, PendingCheck, is also stressed on a plain JVM by jvmtests' PendingCheckTest;
+ * this runs it through a real group, Handler and main thread.
+ */
+public class PostCheckStressTest extends InstrumentationTestCase {
+
+	enum Level {
+		LOUD_0, LOUD_1, LOUD_2, LOUD_3, QUIET_0, QUIET_1, QUIET_2, QUIET_3
+	}
+
+	private static final int THREADS = 8;
+	private static final int POSTS_PER_THREAD = 5000;
+	private static final int ROUNDS = 10;
+
+	private EnumRadioGroup<Level> group;
+	private final AtomicInteger listenerCalls = new AtomicInteger();
+	// the first thing the listener saw that it shouldn't have, or null
+	private final AtomicReference<String> failure = new AtomicReference<String>();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		getInstrumentation().runOnMainSync(new Runnable() {
+			@Override
+			public void run() {
+				group = new EnumRadioGroup<Level>(getInstrumentation().getTargetContext(), Level.LOUD_0);
+				group.setOnCheckedChangeListener(new EnumRadioGroup.OnCheckedChangeListener<Level>() {
+					@Override
+					public void onCheckedChanged(EnumRadioGroup<Level> g, Level currentValue, int checkedId) {
+						listenerCalls.incrementAndGet();
+						if( isQuiet(currentValue)) {
+							failure.compareAndSet(null, "listener called for silent " + currentValue);
+						}
+						if( g.getViewIdForEnum(currentValue) != checkedId) {
+							failure.compareAndSet(null, "id " + checkedId + " isn't that of " + currentValue);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	public void testConcurrentPostsCoalesceWithoutLosingTheLast() throws Exception {
+		for( int round = 0; round < ROUNDS; ++round) {
+			postFromManyThreads(round);
+
+			// the only post after all the others; it must be what's checked once the main thread is idle
+			final Level last = Level.values()[round % Level.values().length];
+			Thread lastPoster = new Thread() {
+				@Override
+				public void run() {
+					group.postCheck(last, isQuiet(last));
+				}
+			};
+			lastPoster.start();
+			lastPoster.join();
+			getInstrumentation().waitForIdleSync();
+
+			final AtomicReference<Level> checked = new AtomicReference<Level>();
+			getInstrumentation().runOnMainSync(new Runnable() {
+				@Override
+				public void run() {
+					checked.set(group.getCheckedValue());
+				}
+			});
+			assertEquals("round " + round, last, checked.get());
+			assertNull(failure.get(), failure.get());
+		}
+	}
+
+	public void testSilentPostsNeverCallListeners() throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[THREADS];
+		for( int t = 0; t < THREADS; ++t) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					await(start);
+					for( int i = 0; i < POSTS_PER_THREAD; ++i) {
+						group.postCheck(Level.values()[Level.QUIET_0.ordinal() + i % 4], true);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for( Thread thread : threads) {
+			thread.join();
+		}
+		getInstrumentation().waitForIdleSync();
+		assertEquals(0, listenerCalls.get());
+	}
+
+	// THREADS threads, started together, each posting a random mix of loud and quiet values
+	private void postFromManyThreads(int round) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[THREADS];
+		for( int t = 0; t < THREADS; ++t) {
+			final Random random = new Random(round * THREADS + t);
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					await(start);
+					Level[] values = Level.values();
+					for( int i = 0; i < POSTS_PER_THREAD; ++i) {
+						Level value = values[random.nextInt(values.length)];
+						group.postCheck(value, isQuiet(value));
+					}
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for( Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	private static boolean isQuiet(Level value) {
+		return value.ordinal() >= Level.QUIET_0.ordinal();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
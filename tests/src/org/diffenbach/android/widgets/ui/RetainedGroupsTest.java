@@ -0,0 +1,105 @@
+package org.diffenbach.android.widgets.ui;
+
+import org.diffenbach.android.widgets.tests.R;
+
+import android.os.Parcelable;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+
+/**
+ * A group built from its predecessor's retained state, across a simulated configuration change.
+ * @author TP Diffenbach
+ *
+ * Inflates the group, saves its hierarchy state and retains it, as the old Activity would;
+ * then inflates its successor, which takes the retained state, and restores the saved hierarchy state
+ * into it, as the new Activity does after onCreate.
+ */
+public class RetainedGroupsTest extends ActivityInstrumentationTestCase2<GroupTestActivity> {
+
+	enum Size {
+		NONE, SMALL, MEDIUM, LARGE
+	}
+
+	private EnumRadioGroup<Size> predecessor;
+	private EnumRadioGroup<Size> successor;
+	private final SparseArray<Parcelable> savedState = new SparseArray<Parcelable>();
+	private final int[] successorCalls = new int[1];
+
+	public RetainedGroupsTest() {
+		super(GroupTestActivity.class);
+	}
+
+	public void testSuccessorReusesTheIdsAndTakesTheCheck() {
+		recreate(new Runnable() {
+			@Override
+			public void run() {
+			}
+		});
+		assertEquals(predecessor.getViewIdForEnum(Size.SMALL), successor.getViewIdForEnum(Size.SMALL));
+		assertEquals(Size.LARGE, successor.getCheckedValue());
+		assertEquals(0, successorCalls[0]);
+	}
+
+	public void testRetainedVisibilityIsNotFilteredAgain() {
+		// enumDefaultIsShown="false" hid the default in the predecessor; the user then showed it
+		recreate(new Runnable() {
+			@Override
+			public void run() {
+				predecessor.filter(EnumRadioGroup.includeAll(Size.class));
+			}
+		});
+		assertTrue(successor.getModel().isVisible(Size.NONE));
+	}
+
+	public void testRestoredButtonStateDoesNotUndoACheckInOnCreate() {
+		recreate(new Runnable() {
+			@Override
+			public void run() {
+			}
+		});
+		getInstrumentation().runOnMainSync(new Runnable() {
+			@Override
+			public void run() {
+				// as in onCreate, then the Activity restores the saved hierarchy state
+				successor.check(Size.MEDIUM);
+				successor.restoreHierarchyState(savedState);
+			}
+		});
+		assertEquals(Size.MEDIUM, successor.getCheckedValue());
+		assertEquals(successor.getViewIdForEnum(Size.MEDIUM), successor.getCheckedRadioButtonId());
+		assertEquals(1, successorCalls[0]);
+	}
+
+	// inflates the predecessor, checks LARGE, runs beforeRetain, then saves, retains and inflates the successor
+	private void recreate(final Runnable beforeRetain) {
+		final GroupTestActivity activity = getActivity();
+		getInstrumentation().runOnMainSync(new Runnable() {
+			@Override
+			public void run() {
+				LayoutInflater inflater = LayoutInflater.from(activity);
+				predecessor = inflate(inflater, activity);
+				assertFalse(predecessor.getModel().isVisible(Size.NONE));
+				predecessor.check(Size.LARGE);
+				beforeRetain.run();
+				predecessor.saveHierarchyState(savedState);
+				Object retained = RetainedGroups.retain(predecessor);
+
+				RetainedGroups.restore(retained, activity);
+				successor = inflate(inflater, activity);
+				RetainedGroups.finish();
+				successor.setOnCheckedChangeListener(new EnumRadioGroup.OnCheckedChangeListener<Size>() {
+					@Override
+					public void onCheckedChanged(EnumRadioGroup<Size> group, Size currentValue, int checkedId) {
+						++successorCalls[0];
+					}
+				});
+			}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static EnumRadioGroup<Size> inflate(LayoutInflater inflater, GroupTestActivity activity) {
+		return (EnumRadioGroup<Size>) inflater.inflate(R.layout.retained_group, activity.getContainer(), false);
+	}
+}